@@ -0,0 +1,77 @@
+package pawpal.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import pawpal.tasks.Deadline;
+import pawpal.tasks.Event;
+import pawpal.tasks.Task;
+import pawpal.tasks.ToDo;
+
+/**
+ * Synthetic task lists shared by the benchmarks.
+ * Lists are generated from a fixed seed, so every run benchmarks the same tasks.
+ */
+final class BenchmarkTasks {
+    private static final String[] WORDS = {
+        "read", "book", "return", "library", "team", "meeting", "submit", "report", "buy", "groceries",
+        "feed", "cat", "pay", "rent", "call", "mum", "project", "review", "gym", "dentist"
+    };
+
+    private BenchmarkTasks() {
+    }
+
+    /**
+     * Generates a mix of ToDos, Deadlines and Events in roughly equal parts.
+     * One in ten dates is free text rather than a parseable date, as users enter both.
+     *
+     * @param count The number of tasks to generate.
+     * @return The generated tasks.
+     */
+    static List<Task> generate(int count) {
+        Random random = new Random(42);
+        List<Task> tasks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String description = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                    + " " + i;
+            Task task = switch (i % 3) {
+            case 0 -> new ToDo(description);
+            case 1 -> new Deadline(description, randomDate(random));
+            default -> new Event(description, randomDate(random), "tomorrow");
+            };
+            if (random.nextBoolean()) {
+                task.markAsDone();
+            }
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    private static String randomDate(Random random) {
+        if (random.nextInt(10) == 0) {
+            return "next week";
+        }
+        return String.format("%d/%d/%d %02d%02d", 1 + random.nextInt(28), 1 + random.nextInt(12),
+                2020 + random.nextInt(10), random.nextInt(24), random.nextInt(60));
+    }
+
+    /**
+     * Deletes a directory created for a benchmark run, with everything in it.
+     *
+     * @param dir The directory to delete.
+     * @throws IOException If a file cannot be deleted.
+     */
+    static void deleteRecursively(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package pawpal.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pawpal.utils.Storage;
+import pawpal.utils.TaskList;
+
+/**
+ * Measures {@code find} queries on a loaded task list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int taskCount;
+
+    @Param({"dentist", "team meeting", "re"})
+    public String query;
+
+    private Path dir;
+    private TaskList taskList;
+
+    /**
+     * Loads a synthetic task list and runs one search, so the benchmarks see the steady state
+     * of a list that has been searched before.
+     *
+     * @throws IOException If the task file cannot be written.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("pawpal-jmh");
+        String filePath = dir.resolve("tasks.txt").toString();
+        new Storage(filePath).saveTasks(BenchmarkTasks.generate(taskCount));
+        taskList = new TaskList(new Storage(filePath));
+        taskList.findTasks(query);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkTasks.deleteRecursively(dir);
+    }
+
+    /**
+     * Runs a {@code find} query and builds its response.
+     */
+    @Benchmark
+    public String findTasks() {
+        return taskList.findTasks(query);
+    }
+}
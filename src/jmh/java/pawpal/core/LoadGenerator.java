@@ -0,0 +1,208 @@
+package pawpal.core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import pawpal.utils.Storage;
+
+/**
+ * Drives server mode over loopback and reports throughput and p50/p99 latency.
+ * By default it starts its own server on a scratch copy of a synthetic task list;
+ * {@code --port <port>} targets a server that is already running instead.
+ * <p>
+ * Options: {@code --connections <n>} (default 16), {@code --commands <n>} per connection (default 10000),
+ * {@code --pipeline <depth>} commands in flight per connection (default 8) and {@code --tasks <n>} in the
+ * scratch list (default 10000). Four in five commands are reads, the rest adds and marks. Latency runs from
+ * sending a command to receiving the end of its response, so it includes waiting behind pipelined commands.
+ */
+public final class LoadGenerator {
+    private static final String[] READS = {"list 1 20", "find report", "upcoming 3", "find team meeting"};
+    private static final ThreadFactory VIRTUAL_THREADS = Thread.ofVirtual().name("pawpal-load-", 0).factory();
+
+    private int port;
+    private int connectionCount = 16;
+    private int commandCount = 10_000;
+    private int pipelineDepth = 8;
+    private int taskCount = 10_000;
+
+    private LoadGenerator() {
+    }
+
+    /**
+     * Runs the load generator, e.g. {@code gradle loadgen -PloadArgs="--connections 64 --pipeline 16"}.
+     *
+     * @param args The options described above.
+     * @throws Exception If the server cannot be started or a connection fails.
+     */
+    public static void main(String[] args) throws Exception {
+        LoadGenerator generator = new LoadGenerator();
+        try {
+            generator.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Usage: [--port <port>] [--connections <n>] [--commands <n>] [--pipeline <depth>]"
+                    + " [--tasks <n>]");
+            System.exit(2);
+        }
+        if (generator.port > 0) {
+            generator.report(generator.drive());
+            return;
+        }
+
+        Path dir = Files.createTempDirectory("pawpal-load");
+        String filePath = dir.resolve("tasks.txt").toString();
+        new Storage(filePath).saveTasks(BenchmarkTasks.generate(generator.taskCount));
+        PawPal pawPal = new PawPal(filePath);
+        try (CommandServer server = new CommandServer(pawPal, 0)) {
+            Thread acceptor = new Thread(server::serve, "pawpal-load-acceptor");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            generator.port = server.getPort();
+            generator.report(generator.drive());
+        } finally {
+            pawPal.shutdown();
+            BenchmarkTasks.deleteRecursively(dir);
+        }
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 == args.length) {
+                throw new IllegalArgumentException(args[i]);
+            }
+            int value = Integer.parseInt(args[i + 1]);
+            switch (args[i]) {
+            case "--port":
+                port = value;
+                break;
+            case "--connections":
+                connectionCount = value;
+                break;
+            case "--commands":
+                commandCount = value;
+                break;
+            case "--pipeline":
+                pipelineDepth = value;
+                break;
+            case "--tasks":
+                taskCount = value;
+                break;
+            default:
+                throw new IllegalArgumentException(args[i]);
+            }
+            if (value < (args[i].equals("--tasks") ? 0 : 1)) {
+                throw new IllegalArgumentException(args[i]);
+            }
+        }
+    }
+
+    /*
+    Runs every connection on its own virtual thread and returns how long the whole run took, with the latencies
+     */
+    private Result drive() throws InterruptedException {
+        long[][] latencies = new long[connectionCount][];
+        List<Thread> connections = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int c = 0; c < connectionCount; c++) {
+            int connection = c;
+            connections.add(VIRTUAL_THREADS.newThread(() -> {
+                try {
+                    latencies[connection] = runConnection(connection);
+                } catch (IOException | InterruptedException e) {
+                    throw new IllegalStateException("Connection " + connection + " failed", e);
+                }
+            }));
+        }
+        connections.forEach(Thread::start);
+        for (Thread connection : connections) {
+            connection.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        long[] all = Arrays.stream(latencies).filter(l -> l != null).flatMapToLong(Arrays::stream).toArray();
+        Arrays.sort(all);
+        return new Result(elapsed, all);
+    }
+
+    /*
+    Sends commands on one thread while this one reads the responses, with at most pipelineDepth in flight
+     */
+    private long[] runConnection(int connection) throws IOException, InterruptedException {
+        AtomicLongArray sentAt = new AtomicLongArray(commandCount);
+        long[] latencies = new long[commandCount];
+        Semaphore inFlight = new Semaphore(pipelineDepth);
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            Thread sender = VIRTUAL_THREADS.newThread(() -> {
+                try {
+                    for (int i = 0; i < commandCount; i++) {
+                        inFlight.acquire();
+                        sentAt.set(i, System.nanoTime());
+                        out.write(commandFor(connection, i));
+                        out.write('\n');
+                        out.flush();
+                    }
+                } catch (IOException | InterruptedException e) {
+                    // The reader below fails on the same broken connection
+                }
+            });
+            sender.start();
+            for (int i = 0; i < commandCount; i++) {
+                if (CommandServer.readResponse(in) == null) {
+                    throw new IOException("The server closed the connection");
+                }
+                latencies[i] = System.nanoTime() - sentAt.get(i);
+                inFlight.release();
+            }
+            sender.join();
+        }
+        return latencies;
+    }
+
+    private String commandFor(int connection, int i) {
+        if (i % 5 != 4) {
+            return READS[(connection + i) % READS.length];
+        }
+        if (taskCount == 0 || i % 10 == 4) {
+            return "todo load " + connection + " " + i;
+        }
+        return "mark " + (1 + (connection * 7919 + i) % taskCount);
+    }
+
+    private void report(Result result) {
+        long[] latencies = result.latencies();
+        double seconds = result.elapsedNanos() / 1e9;
+        System.out.printf("%d connections, pipeline depth %d, %d commands (one in five writes)%n",
+                connectionCount, pipelineDepth, latencies.length);
+        System.out.printf("Throughput: %.0f commands/s over %.2f s%n", latencies.length / seconds, seconds);
+        System.out.printf("Latency: p50 %.3f ms, p99 %.3f ms, max %.3f ms%n", percentile(latencies, 0.50),
+                percentile(latencies, 0.99), percentile(latencies, 1.0));
+    }
+
+    private static double percentile(long[] sortedNanos, double fraction) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(fraction * sortedNanos.length);
+        return sortedNanos[Math.max(rank, 1) - 1] / 1e6;
+    }
+
+    private record Result(long elapsedNanos, long[] latencies) {
+    }
+}
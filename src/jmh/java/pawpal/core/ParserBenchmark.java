@@ -0,0 +1,67 @@
+package pawpal.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pawpal.utils.Storage;
+import pawpal.utils.TaskList;
+
+/**
+ * Measures parsing and running single commands against a small task list.
+ * Commands that add tasks are left out, as repeating them would grow the list between iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"mark 7", "unmark 7", "find report", "due before 1/6/2025 1200", "meow"})
+    public String input;
+
+    private Path dir;
+    private Parser parser;
+
+    /**
+     * Loads a synthetic list of 100 tasks for the commands to act on.
+     *
+     * @throws IOException If the task file cannot be written.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("pawpal-jmh");
+        String filePath = dir.resolve("tasks.txt").toString();
+        new Storage(filePath).saveTasks(BenchmarkTasks.generate(100));
+        parser = new Parser(new TaskList(new Storage(filePath)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkTasks.deleteRecursively(dir);
+    }
+
+    /**
+     * Parses and runs the command, as the chat window does for each message.
+     */
+    @Benchmark
+    public String parse() {
+        return parser.parse(input);
+    }
+}
@@ -0,0 +1,84 @@
+package pawpal.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pawpal.tasks.Task;
+import pawpal.utils.Storage;
+import pawpal.utils.TaskList;
+
+/**
+ * Measures sorting a loaded task list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SortBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int taskCount;
+
+    private Path dir;
+    private String filePath;
+    private TaskList taskList;
+
+    /**
+     * Saves a shuffled synthetic task list.
+     *
+     * @throws IOException If the task file cannot be written.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("pawpal-jmh");
+        filePath = dir.resolve("tasks.txt").toString();
+        List<Task> tasks = BenchmarkTasks.generate(taskCount);
+        Collections.shuffle(tasks, new Random(42));
+        new Storage(filePath).saveTasks(tasks);
+    }
+
+    /**
+     * Loads the list afresh before each sort, since a sorted list stays sorted,
+     * and decodes every task and date so that only the sort itself is measured.
+     */
+    @Setup(Level.Invocation)
+    public void load() {
+        taskList = new TaskList(new Storage(filePath));
+        for (Task task : taskList.getTasks()) {
+            task.getSortEpochSecond();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkTasks.deleteRecursively(dir);
+    }
+
+    /**
+     * Sorts the whole list as the {@code sort} command does.
+     */
+    @Benchmark
+    public void sortTasks() {
+        taskList.sortTasks();
+    }
+}
@@ -0,0 +1,90 @@
+package pawpal.core;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import pawpal.tasks.Task;
+import pawpal.utils.Storage;
+
+/**
+ * Measures loading and saving task files in the text and binary formats.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int taskCount;
+
+    @Param({"txt", "bin"})
+    public String format;
+
+    private Path dir;
+    private Storage storage;
+    private List<Task> tasks;
+
+    /**
+     * Writes the synthetic task file that the load benchmarks read.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("pawpal-jmh");
+        tasks = BenchmarkTasks.generate(taskCount);
+        storage = new Storage(dir.resolve("tasks." + format).toString());
+        storage.saveTasks(tasks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkTasks.deleteRecursively(dir);
+    }
+
+    /**
+     * Loads the file as the application does at startup, decoding tasks only on access.
+     */
+    @Benchmark
+    public List<Task> loadTasks() throws IOException {
+        return storage.loadTasks();
+    }
+
+    /**
+     * Loads the file and reads every task, as listing or sorting right after startup does.
+     */
+    @Benchmark
+    public void loadAndReadTasks(Blackhole blackhole) throws IOException {
+        for (Task task : storage.loadTasks()) {
+            blackhole.consume(task);
+        }
+    }
+
+    /**
+     * Writes a full snapshot of the task list.
+     */
+    @Benchmark
+    public void saveTasks() throws IOException {
+        storage.saveTasks(tasks);
+    }
+}
@@ -0,0 +1,128 @@
+package pawpal.core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import pawpal.utils.Command;
+
+/**
+ * Runs a script of commands without the chat window, e.g. {@code --batch commands.txt} or piped input.
+ * Commands go through {@link PawPal} like any session's, so a script can switch task lists with {@code use}.
+ * The whole script is applied as one bulk update: responses go through a single buffered writer
+ * and each task list is saved once at the end, or every few mutations if a checkpoint interval is set.
+ */
+class BatchRunner {
+    static final String BATCH_FLAG = "--batch";
+    private static final String CHECKPOINT_FLAG = "--checkpoint";
+    private static final String STDIN = "-";
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    private final PawPal pawPal;
+    private final int checkpointInterval;
+
+    /**
+     * Constructs a runner over the task lists of the given PawPal.
+     * The caller shuts the PawPal down once the script has run, which saves what the script changed.
+     *
+     * @param pawPal             The PawPal to run the commands against.
+     * @param checkpointInterval The number of mutations after which a task list is saved, or 0 to save only at the end.
+     */
+    BatchRunner(PawPal pawPal, int checkpointInterval) {
+        this.pawPal = pawPal;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Returns whether the command-line arguments ask for batch mode.
+     *
+     * @param args The command-line arguments.
+     * @return True if the first argument is {@code --batch}.
+     */
+    static boolean isBatch(String[] args) {
+        return args.length > 0 && args[0].equals(BATCH_FLAG);
+    }
+
+    /**
+     * Runs batch mode as configured by the command-line arguments:
+     * {@code --batch [<file> | -] [--checkpoint <mutations>]}. Without a file, commands are read from standard input.
+     *
+     * @param args     The command-line arguments, starting with {@code --batch}.
+     * @param filePath The task file of the default workspace.
+     * @return The process exit code.
+     */
+    static int run(String[] args, String filePath) {
+        String script = STDIN;
+        int checkpointInterval = 0;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                if (args[i].equals(CHECKPOINT_FLAG) && i + 1 < args.length) {
+                    checkpointInterval = Integer.parseInt(args[++i]);
+                } else if (i == 1) {
+                    script = args[i];
+                } else {
+                    throw new IllegalArgumentException(args[i]);
+                }
+            }
+            if (checkpointInterval < 0) {
+                throw new IllegalArgumentException(String.valueOf(checkpointInterval));
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Usage: " + BATCH_FLAG + " [<file> | -] [" + CHECKPOINT_FLAG + " <mutations>]");
+            return 2;
+        }
+
+        PawPal pawPal = new PawPal(filePath);
+        Writer output = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8),
+                OUTPUT_BUFFER_SIZE);
+        try {
+            try (BufferedReader input = script.equals(STDIN)
+                    ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                    : Files.newBufferedReader(Path.of(script), StandardCharsets.UTF_8)) {
+                new BatchRunner(pawPal, checkpointInterval).run(input, output);
+            } finally {
+                pawPal.closeWorkspaces();
+            }
+            return 0;
+        } catch (IOException e) {
+            System.err.println("Batch run failed: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Runs every command from the input in order, writing each response to the output.
+     * Blank lines are skipped and {@code bye} ends the script early.
+     *
+     * @param input  The commands, one per line.
+     * @param output Where the responses are written; flushed once the script ends.
+     * @return The number of commands run.
+     * @throws IOException If the input cannot be read or the output cannot be written.
+     */
+    int run(BufferedReader input, Writer output) throws IOException {
+        pawPal.beginBulkUpdate(checkpointInterval);
+        Session session = new Session();
+        int commandCount = 0;
+        String line;
+        while ((line = input.readLine()) != null) {
+            String text = line.trim();
+            if (text.isEmpty()) {
+                continue;
+            }
+            output.write(pawPal.getResponse(session, text));
+            output.write('\n');
+            commandCount++;
+            if (Command.fromInput(text) == Command.BYE) {
+                break;
+            }
+        }
+        output.flush();
+        return commandCount;
+    }
+}
@@ -0,0 +1,40 @@
+package pawpal.core;
+
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.ListCell;
+import javafx.scene.image.Image;
+
+/**
+ * List cell that shows a chat message in a dialog box.
+ * The list only creates enough cells to fill the visible area and hands them new messages
+ * as the user scrolls, so each cell keeps a single dialog box and refills it.
+ */
+class ChatCell extends ListCell<ChatMessage> {
+    private final DialogBox dialogBox = new DialogBox();
+    private final Image userImage;
+    private final Image pawpalImage;
+
+    /**
+     * Constructs a cell that shows messages with the given pictures.
+     *
+     * @param userImage   The picture next to the user's messages.
+     * @param pawpalImage The picture next to PawPal's replies.
+     */
+    ChatCell(Image userImage, Image pawpalImage) {
+        this.userImage = userImage;
+        this.pawpalImage = pawpalImage;
+        setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+    }
+
+    @Override
+    protected void updateItem(ChatMessage message, boolean isEmpty) {
+        super.updateItem(message, isEmpty);
+        setText(null);
+        if (isEmpty || message == null) {
+            setGraphic(null);
+            return;
+        }
+        dialogBox.show(message.text(), message.isUser() ? userImage : pawpalImage, message.isUser());
+        setGraphic(dialogBox);
+    }
+}
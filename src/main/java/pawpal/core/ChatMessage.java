@@ -0,0 +1,10 @@
+package pawpal.core;
+
+/**
+ * One message in the chat history.
+ *
+ * @param text   The message text.
+ * @param isUser Whether the user sent the message, as opposed to PawPal.
+ */
+record ChatMessage(String text, boolean isUser) {
+}
@@ -0,0 +1,29 @@
+package pawpal.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for one command answered by {@link PawPal#getResponse(String)},
+ * from reading the input to having the response ready, including any save.
+ */
+@Name("pawpal.Command")
+@Label("Command")
+@Category("PawPal")
+@Description("A command answered by PawPal, including parsing, running and saving")
+final class CommandEvent extends Event {
+    @Label("Command")
+    String command;
+
+    @Label("Workspace")
+    String workspace;
+
+    @Label("Input Length")
+    int inputLength;
+
+    @Label("Response Length")
+    int responseLength;
+}
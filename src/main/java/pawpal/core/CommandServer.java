@@ -0,0 +1,292 @@
+package pawpal.core;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+import pawpal.utils.Command;
+import pawpal.utils.Printer;
+
+/**
+ * Serves one shared PawPal to scripts on the same machine over a plain TCP line protocol,
+ * e.g. {@code --server 4117}. It only listens on the loopback address, since commands are not authenticated.
+ * <p>
+ * A client sends one command per line and gets back each response as its lines followed by a line
+ * holding only {@code .}; a response line that starts with {@code .} is sent with another {@code .} in front.
+ * Blank lines are ignored and {@code bye} ends the connection. Each connection starts in the default workspace
+ * and switches with {@code use <name>} without affecting other connections. Clients may pipeline: commands sent
+ * without waiting for their responses are answered in the order they were sent.
+ * <p>
+ * Each connection is served by two virtual threads: one reads commands into a small bounded queue,
+ * the other runs them and writes the responses. A client that sends faster than its commands run
+ * fills its queue, after which the server stops reading from it and TCP flow control holds it back.
+ * Only as many commands as there are processors run at once across all connections, and a client
+ * beyond the connection limit is told the server is busy and disconnected.
+ */
+class CommandServer implements Closeable {
+    static final String SERVER_FLAG = "--server";
+    static final int DEFAULT_PORT = 4117;
+    static final String END_OF_RESPONSE = ".";
+    private static final int BACKLOG = 128;
+    private static final int MAX_CONNECTIONS = 256;
+    private static final int PIPELINE_DEPTH = 64;
+    private static final String END_OF_INPUT = "\n"; // Never returned by readLine, so no command can be mistaken for it
+
+    private final PawPal pawPal;
+    private final ServerSocket serverSocket;
+    private final ThreadFactory virtualThreads = Thread.ofVirtual().name("pawpal-client-", 0).factory();
+    private final Semaphore connectionSlots = new Semaphore(MAX_CONNECTIONS);
+    private final Semaphore commandSlots = new Semaphore(Runtime.getRuntime().availableProcessors());
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Constructs a server for the given PawPal, listening on the loopback address.
+     *
+     * @param pawPal The PawPal whose commands are served.
+     * @param port   The port to listen on, or 0 for any free port.
+     * @throws IOException If the port cannot be bound.
+     */
+    CommandServer(PawPal pawPal, int port) throws IOException {
+        this.pawPal = pawPal;
+        this.serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Returns whether the command-line arguments ask for server mode.
+     *
+     * @param args The command-line arguments.
+     * @return True if the first argument is {@code --server}.
+     */
+    static boolean isServer(String[] args) {
+        return args.length > 0 && args[0].equals(SERVER_FLAG);
+    }
+
+    /**
+     * Runs server mode as configured by the command-line arguments: {@code --server [<port>]}.
+     * Serves until the process is stopped, then waits for pending saves.
+     *
+     * @param args The command-line arguments, starting with {@code --server}.
+     * @return The process exit code.
+     */
+    static int run(String[] args) {
+        int port = DEFAULT_PORT;
+        try {
+            if (args.length > 2) {
+                throw new IllegalArgumentException(args[2]);
+            }
+            if (args.length == 2) {
+                port = Integer.parseInt(args[1]);
+            }
+            if (port < 0 || port > 0xFFFF) {
+                throw new IllegalArgumentException(String.valueOf(port));
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println("Usage: " + SERVER_FLAG + " [<port>]");
+            return 2;
+        }
+
+        PawPal pawPal = new PawPal();
+        CommandServer server;
+        try {
+            server = new CommandServer(pawPal, port);
+        } catch (IOException e) {
+            System.err.println("Server failed: " + e.getMessage());
+            return 1;
+        }
+        // The hook alone closes the server, so clients are disconnected before the task lists are saved
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            pawPal.shutdown();
+        }));
+        System.out.println("PawPal is listening on " + InetAddress.getLoopbackAddress().getHostAddress()
+                + ":" + server.getPort());
+        server.serve();
+        return 0;
+    }
+
+    /**
+     * Returns the port the server listens on, e.g. the one picked for port 0.
+     *
+     * @return The local port.
+     */
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until the server is closed, serving each on its own virtual threads.
+     */
+    void serve() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket client = serverSocket.accept();
+                virtualThreads.newThread(() -> handle(client)).start();
+            } catch (IOException e) {
+                // Closing the server ends the loop; any other failure only loses the connection being accepted
+            }
+        }
+    }
+
+    /**
+     * Stops accepting connections and disconnects every client. Commands already running still finish.
+     */
+    @Override
+    public void close() {
+        try {
+            serverSocket.close();
+        } catch (IOException e) {
+            // Nothing more can be done about a socket that fails to close
+        }
+        for (Socket client : clients) {
+            try {
+                client.close();
+            } catch (IOException e) {
+                // The client is disconnected either way
+            }
+        }
+    }
+
+    /**
+     * Writes a response in the wire format: its lines, each starting with {@code .} escaped, then a lone {@code .}.
+     *
+     * @param response The response to send.
+     * @param out      Where the response is written.
+     * @throws IOException If the response cannot be written.
+     */
+    static void writeResponse(String response, Writer out) throws IOException {
+        for (String line : response.lines().toList()) {
+            if (line.startsWith(END_OF_RESPONSE)) {
+                out.write(END_OF_RESPONSE);
+            }
+            out.write(line);
+            out.write('\n');
+        }
+        out.write(END_OF_RESPONSE);
+        out.write('\n');
+    }
+
+    /**
+     * Reads one response in the wire format written by {@link #writeResponse(String, Writer)}.
+     *
+     * @param in The connection to read from.
+     * @return The response, or null if the connection closed before a whole response arrived.
+     * @throws IOException If the connection cannot be read.
+     */
+    static String readResponse(BufferedReader in) throws IOException {
+        StringBuilder response = new StringBuilder();
+        String separator = "";
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.equals(END_OF_RESPONSE)) {
+                return response.toString();
+            }
+            response.append(separator).append(line.startsWith(END_OF_RESPONSE) ? line.substring(1) : line);
+            separator = "\n";
+        }
+        return null;
+    }
+
+    private void handle(Socket client) {
+        if (!connectionSlots.tryAcquire()) {
+            reject(client);
+            return;
+        }
+        clients.add(client);
+        try (client) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(client.getInputStream(),
+                    StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8));
+            BlockingQueue<String> pending = new ArrayBlockingQueue<>(PIPELINE_DEPTH);
+            Thread reader = virtualThreads.newThread(() -> readCommands(in, pending));
+            reader.start();
+            try {
+                writeResponses(pending, out);
+            } finally {
+                reader.interrupt(); // In case it is blocked on a full queue that will no longer drain
+            }
+        } catch (IOException | InterruptedException e) {
+            // The client went away or the server closed; commands still queued are dropped
+        } finally {
+            clients.remove(client);
+            connectionSlots.release();
+        }
+    }
+
+    private static void reject(Socket client) {
+        try (client) {
+            Writer out = new OutputStreamWriter(client.getOutputStream(), StandardCharsets.UTF_8);
+            writeResponse(Printer.getServerBusyMessage(), out);
+            out.flush();
+        } catch (IOException e) {
+            // The client is turned away either way
+        }
+    }
+
+    /*
+    Queues commands until the client stops sending or says bye. Blocks while the queue is full,
+    which is what holds back a client that sends faster than its commands run.
+     */
+    private static void readCommands(BufferedReader in, BlockingQueue<String> pending) {
+        try {
+            try {
+                String line;
+                while ((line = in.readLine()) != null) {
+                    String command = line.trim();
+                    if (command.isEmpty()) {
+                        continue;
+                    }
+                    pending.put(command);
+                    if (Command.fromInput(command) == Command.BYE) {
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                // A broken connection ends the input like a closed one; the writer finds out when it next writes
+            }
+            pending.put(END_OF_INPUT);
+        } catch (InterruptedException e) {
+            // The writer has stopped
+        }
+    }
+
+    /*
+    Runs the queued commands in order, in the connection's own session. Responses are flushed once
+    the queue runs empty, so the answers to a pipelined burst go out together.
+     */
+    private void writeResponses(BlockingQueue<String> pending, Writer out) throws IOException, InterruptedException {
+        Session session = new Session();
+        String command;
+        while (!(command = pending.take()).equals(END_OF_INPUT)) {
+            writeResponse(runCommand(session, command), out);
+            if (pending.isEmpty()) {
+                out.flush();
+            }
+        }
+        out.flush();
+    }
+
+    private String runCommand(Session session, String command) throws InterruptedException {
+        commandSlots.acquire();
+        try {
+            return pawPal.getResponse(session, command);
+        } catch (RuntimeException e) {
+            return Printer.getCommandFailedMessage();
+        } finally {
+            commandSlots.release();
+        }
+    }
+}
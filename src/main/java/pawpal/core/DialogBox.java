@@ -1,72 +1,66 @@
-package pawpal.core;
-
-import java.io.IOException;
-import java.util.Collections;
-
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
-import javafx.fxml.FXML;
-import javafx.fxml.FXMLLoader;
-import javafx.geometry.Pos;
-import javafx.scene.Node;
-import javafx.scene.control.Label;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import javafx.scene.layout.HBox;
-import javafx.scene.shape.Circle;
-
-/**
- * Represents a dialog box consisting of an ImageView to represent the speaker's face
- * and a label containing text from the speaker.
- */
-public class DialogBox extends HBox {
-    @FXML
-    private Label dialog;
-    @FXML
-    private ImageView displayPicture;
-
-    private DialogBox(String text, Image img) {
-        try {
-            FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
-            fxmlLoader.setController(this);
-            fxmlLoader.setRoot(this);
-            fxmlLoader.load();
-        } catch (IOException e) {
-            System.out.println(e.getMessage());
-        }
-
-        dialog.setText(text);
-        displayPicture.setImage(img);
-
-        // Apply a circular mask to the ImageView
-        Circle clip = new Circle(25, 25, 25); // Center (x=25, y=25), Radius = 25
-        displayPicture.setClip(clip);
-
-        this.getStyleClass().add("chat-bubble");
-    }
-
-    /**
-     * Flips the dialog box such that the ImageView is on the left and text on the right.
-     */
-    private void flip() {
-        ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
-        Collections.reverse(tmp);
-        getChildren().setAll(tmp);
-        setAlignment(Pos.TOP_LEFT);
-        dialog.getStyleClass().add("reply-label");
-    }
-
-    public static DialogBox getUserDialog(String text, Image img) {
-        var db = new DialogBox(text, img);
-        db.setAlignment(Pos.CENTER_RIGHT);
-        db.getStyleClass().add("user-label");
-        return db;
-    }
-
-    public static DialogBox getPawPalDialog(String text, Image img) {
-        var db = new DialogBox(text, img);
-        db.flip();
-        db.getStyleClass().add("reply-label");
-        return db;
-    }
-}
+package pawpal.core;
+
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Label;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.HBox;
+import javafx.scene.shape.Circle;
+
+/**
+ * Represents a dialog box consisting of an ImageView to represent the speaker's face
+ * and a label containing text from the speaker.
+ * The box is built in code rather than loaded from FXML, and a chat cell reuses one box for every
+ * message it shows, so adding a message does not create or parse anything.
+ */
+public class DialogBox extends HBox {
+    private final Label dialog = new Label();
+    private final ImageView displayPicture = new ImageView();
+
+    /**
+     * Constructs an empty dialog box; {@link #show(String, Image, boolean)} fills it in.
+     */
+    DialogBox() {
+        setSpacing(10);
+        setMaxSize(Double.MAX_VALUE, Double.MAX_VALUE);
+        setPadding(new Insets(10));
+
+        dialog.setWrapText(true);
+        dialog.setMaxWidth(300);
+
+        displayPicture.setFitHeight(50);
+        displayPicture.setFitWidth(50);
+        displayPicture.setPickOnBounds(true);
+        displayPicture.setPreserveRatio(true);
+
+        // Apply a circular mask to the ImageView
+        Circle clip = new Circle(25, 25, 25); // Center (x=25, y=25), Radius = 25
+        displayPicture.setClip(clip);
+    }
+
+    /**
+     * Shows a message in this box, replacing whatever it showed before.
+     * User messages have the picture on the right; PawPal's replies are flipped so it is on the left.
+     *
+     * @param text   The message text.
+     * @param img    The speaker's picture.
+     * @param isUser Whether the user is the speaker.
+     */
+    void show(String text, Image img, boolean isUser) {
+        dialog.setText(text);
+        displayPicture.setImage(img);
+        if (isUser) {
+            getChildren().setAll(dialog, displayPicture);
+            setAlignment(Pos.CENTER_RIGHT);
+            getStyleClass().setAll("chat-bubble", "user-label");
+            dialog.getStyleClass().setAll("label");
+        } else {
+            getChildren().setAll(displayPicture, dialog);
+            setAlignment(Pos.TOP_LEFT);
+            getStyleClass().setAll("chat-bubble", "reply-label");
+            dialog.getStyleClass().setAll("label", "reply-label");
+        }
+    }
+
+}
@@ -1,12 +1,19 @@
-package pawpal.core;
-
-import javafx.application.Application;
-
-/**
- * Launches a JavaFX launcher
- */
-public class Launcher {
-    public static void main(String[] args) {
-        Application.launch(Main.class, args);
-    }
-}
+package pawpal.core;
+
+import javafx.application.Application;
+
+/**
+ * Launches a JavaFX launcher, or runs headless when given {@code --batch} (a command script)
+ * or {@code --server} (commands from local clients).
+ */
+public class Launcher {
+    public static void main(String[] args) {
+        if (BatchRunner.isBatch(args)) {
+            System.exit(BatchRunner.run(args, PawPal.TASK_FILE_PATH));
+        }
+        if (CommandServer.isServer(args)) {
+            System.exit(CommandServer.run(args));
+        }
+        Application.launch(Main.class, args);
+    }
+}
@@ -1,76 +1,171 @@
-package pawpal.core;
-
-import java.util.Objects;
-
-import javafx.animation.PauseTransition;
-import javafx.application.Platform;
-import javafx.fxml.FXML;
-import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
-import javafx.scene.control.TextField;
-import javafx.scene.image.Image;
-import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
-import javafx.util.Duration;
-import pawpal.utils.Printer;
-
-/**
- * Controller for the main GUI.
- */
-public class MainWindow extends AnchorPane {
-    @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
-    @FXML
-    private TextField userInput;
-    @FXML
-    private Button sendButton;
-
-    private PawPal pawpal;
-
-    private final Image userImage = new Image(Objects
-            .requireNonNull(this.getClass().getResourceAsStream("/images/cat-right.png")));
-    private final Image pawpalImage = new Image(Objects
-            .requireNonNull(this.getClass().getResourceAsStream("/images/cat-left.png")));
-
-    @FXML
-    public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
-    }
-
-    /** Injects the PawPal instance */
-    public void setPawPal(PawPal p) {
-        pawpal = p;
-        String greeting = Printer.getGreetingMessage("PawPal");
-        dialogContainer.getChildren().add(DialogBox.getPawPalDialog(greeting, pawpalImage));
-    }
-
-    /**
-     * Handles user input by displaying it and generating a response.
-     */
-    @FXML
-    private void handleUserInput() {
-        String input = userInput.getText();
-        String response = pawpal.getResponse(input);
-        dialogContainer.getChildren().addAll(
-                DialogBox.getUserDialog(input, userImage),
-                DialogBox.getPawPalDialog(response, pawpalImage)
-        );
-        userInput.clear();
-
-        // Exit the application when "bye" is typed
-        if (input.equalsIgnoreCase("bye")) {
-            PauseTransition delay = new PauseTransition(Duration.seconds(1));
-            delay.setOnFinished(event -> Platform.exit());
-            delay.play();
-        }
-    }
-    public void setBackground(String imagePath) {
-        this.getScene().lookup("#mainPane")
-                .setStyle("-fx-background-image: url('" + imagePath + "'); "
-                        + "-fx-background-size: cover; "
-                        + "-fx-background-position: center; "
-                        + "-fx-background-repeat: no-repeat;");
-    }
-}
+package pawpal.core;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+import javafx.fxml.FXML;
+import javafx.scene.control.Button;
+import javafx.scene.control.ListView;
+import javafx.scene.control.ProgressIndicator;
+import javafx.scene.control.TextField;
+import javafx.scene.image.Image;
+import javafx.scene.layout.AnchorPane;
+import javafx.util.Duration;
+import pawpal.utils.Printer;
+
+/**
+ * Controller for the main GUI.
+ * The chat history is a virtualized list: only the visible messages have nodes, and the oldest
+ * messages are dropped once the history holds more than {@code pawpal.historyLimit} of them
+ * (a system property, 500 by default).
+ * Commands run one at a time on a background thread, in the order they were entered, so the window
+ * keeps responding while a command sorts a long list or waits for the disk.
+ */
+public class MainWindow extends AnchorPane {
+    private static final int DEFAULT_HISTORY_LIMIT = 500;
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+    @FXML
+    private ListView<ChatMessage> dialogList;
+    @FXML
+    private TextField userInput;
+    @FXML
+    private Button sendButton;
+    @FXML
+    private ProgressIndicator busyIndicator;
+
+    private PawPal pawpal;
+    private final ExecutorService commandExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pawpal-command");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int pendingCommandCount; // Only touched on the JavaFX thread
+    private boolean isExiting;
+    private int historyLimit = Math.max(1, Integer.getInteger("pawpal.historyLimit", DEFAULT_HISTORY_LIMIT));
+
+    private final Image userImage = new Image(Objects
+            .requireNonNull(this.getClass().getResourceAsStream("/images/cat-right.png")));
+    private final Image pawpalImage = new Image(Objects
+            .requireNonNull(this.getClass().getResourceAsStream("/images/cat-left.png")));
+
+    @FXML
+    public void initialize() {
+        dialogList.setCellFactory(list -> new ChatCell(userImage, pawpalImage));
+        dialogList.setFocusTraversable(false);
+    }
+
+    /** Injects the PawPal instance */
+    public void setPawPal(PawPal p) {
+        pawpal = p;
+        String greeting = Printer.getGreetingMessage("PawPal");
+        addMessages(new ChatMessage(greeting, false));
+    }
+
+    /**
+     * Sets how many messages the chat history keeps, dropping the oldest ones beyond it.
+     *
+     * @param historyLimit The number of messages to keep; at least 1.
+     */
+    public void setHistoryLimit(int historyLimit) {
+        if (historyLimit < 1) {
+            throw new IllegalArgumentException("History limit must be at least 1");
+        }
+        this.historyLimit = historyLimit;
+        addMessages();
+    }
+
+    /**
+     * Waits for the queued commands to finish, so that their changes are handed to storage before it closes.
+     * Should be called once before the application exits.
+     */
+    public void shutdown() {
+        commandExecutor.shutdown();
+        try {
+            commandExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Handles user input by displaying it and queueing it to run in the background.
+     * The response is shown once the command has run; input typed meanwhile is queued behind it.
+     */
+    @FXML
+    private void handleUserInput() {
+        if (isExiting) {
+            return;
+        }
+        String input = userInput.getText();
+        userInput.clear();
+        addMessages(new ChatMessage(input, true));
+
+        // Stop taking input once "bye" is typed; the window closes after PawPal replies
+        isExiting = input.equalsIgnoreCase("bye");
+        userInput.setDisable(isExiting);
+        sendButton.setDisable(isExiting);
+
+        pendingCommandCount++;
+        busyIndicator.setVisible(true);
+        commandExecutor.execute(() -> {
+            String response = runCommand(input);
+            Platform.runLater(() -> showResponse(response));
+        });
+    }
+
+    /*
+    Runs on the command thread. Always returns a reply, so the busy indicator is never left spinning.
+     */
+    private String runCommand(String input) {
+        try {
+            return pawpal.getResponse(input);
+        } catch (RuntimeException e) {
+            return Printer.getCommandFailedMessage();
+        }
+    }
+
+    /*
+    Runs on the JavaFX thread once a queued command has finished
+     */
+    private void showResponse(String response) {
+        addMessages(new ChatMessage(response, false));
+        pendingCommandCount--;
+        busyIndicator.setVisible(pendingCommandCount > 0);
+
+        // Exit the application once the reply to "bye" is shown
+        if (isExiting && pendingCommandCount == 0) {
+            PauseTransition delay = new PauseTransition(Duration.seconds(1));
+            delay.setOnFinished(event -> Platform.exit());
+            delay.play();
+        }
+    }
+
+    /*
+    Appends the messages, trims the history to its limit and scrolls to the newest message
+     */
+    private void addMessages(ChatMessage... newMessages) {
+        ObservableList<ChatMessage> messages = dialogList.getItems();
+        messages.addAll(newMessages);
+        int excess = messages.size() - historyLimit;
+        if (excess > 0) {
+            messages.remove(0, excess);
+        }
+        if (!messages.isEmpty()) {
+            dialogList.scrollTo(messages.size() - 1);
+        }
+    }
+
+    public void setBackground(String imagePath) {
+        this.getScene().lookup("#mainPane")
+                .setStyle("-fx-background-image: url('" + imagePath + "'); "
+                        + "-fx-background-size: cover; "
+                        + "-fx-background-position: center; "
+                        + "-fx-background-repeat: no-repeat;");
+    }
+}
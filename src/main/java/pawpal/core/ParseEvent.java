@@ -0,0 +1,19 @@
+package pawpal.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for one command run by {@link Parser}, without saving.
+ */
+@Name("pawpal.Parse")
+@Label("Parse")
+@Category("PawPal")
+@Description("A command parsed and run against a task list")
+final class ParseEvent extends Event {
+    @Label("Command")
+    String command;
+}
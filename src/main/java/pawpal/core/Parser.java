@@ -1,162 +1,425 @@
-package pawpal.core;
-
-import java.io.IOException;
-
-import pawpal.utils.Command;
-import pawpal.utils.Printer;
-import pawpal.utils.TaskList;
-
-/**
- * Parses and processes user input for PawPal.
- */
-class Parser {
-
-    private final TaskList taskList;
-
-    public Parser(TaskList taskList) {
-        this.taskList = taskList;
-    }
-
-    public String parse(String input) {
-        Command command = parseCommand(input);
-        switch (command) {
-        case LIST:
-            return Printer.getTaskListString(taskList.getTasks());
-        case MARK:
-            return processMarkCommand(input, true);
-        case UNMARK:
-            return processMarkCommand(input, false);
-        case TODO:
-            return processToDoCommand(input);
-        case DEADLINE:
-            return processDeadlineCommand(input);
-        case EVENT:
-            return processEventCommand(input);
-        case DELETE:
-            return processDeleteCommand(input);
-        case FIND:
-            return processFindCommand(input);
-        case CHEER:
-            return processCheerCommand();
-        case BYE:
-            return processByeCommand();
-        case SORT:
-            return processSortCommand();
-        default:
-            return Printer.getInvalidCommandMessage();
-        }
-    }
-
-    Command parseCommand(String input) {
-        try {
-            return Command.valueOf(input.split(" ")[0].toUpperCase());
-        } catch (IllegalArgumentException e) {
-            return Command.INVALID;
-        }
-    }
-
-    // Helper to parse task number from input
-    private int parseTaskNumber(String input) {
-        String[] parts = input.split(" ");
-        if (parts.length < 2) {
-            throw new IllegalArgumentException();
-        }
-        return Integer.parseInt(parts[1].trim());
-    }
-
-    private String processMarkCommand(String input, boolean mark) {
-        try {
-            int taskNumber = Integer.parseInt(input.split(" ")[1].trim());
-            return mark ? taskList.markTask(taskNumber) : taskList.unmarkTask(taskNumber);
-        } catch (Exception e) {
-            return Printer.getInvalidTaskNumberMessage();
-        }
-    }
-
-    private String processDeleteCommand(String input) {
-        try {
-            int taskNumber = Integer.parseInt(input.split(" ")[1].trim());
-            return taskList.deleteTask(taskNumber);
-        } catch (Exception e) {
-            return Printer.getInvalidTaskNumberMessage();
-        }
-    }
-
-    /*
-    Checks that the user has used the Todo command correctly
-     */
-    private String processToDoCommand(String input) {
-        if (input.trim().equalsIgnoreCase("todo") || input.length() <= 4) {
-            return Printer.getTodoUsageMessage();
-        }
-        // Extract description
-        String description = input.substring(4).trim();
-        if (description.isEmpty()) {
-            return Printer.getTodoUsageMessage();
-        }
-        // Add the ToDo if valid
-        return taskList.addToDo(description);
-    }
-    /*
-    Checks that the user has used the deadline command correctly
-     */
-    private String processDeadlineCommand(String input) {
-        if (input.trim().equalsIgnoreCase("deadline") || input.length() <= 9) {
-            return Printer.getDeadlineUsageMessage();
-        }
-        // After removing "deadline ", split by " /by "
-        String[] parts = input.substring(9).split(" /by ", 2);
-        if (parts.length < 2) {
-            return Printer.getDeadlineUsageMessage();
-        }
-        String description = parts[0].trim();
-        String deadline = parts[1].trim();
-        // Ensure both parts are non-empty
-        if (description.isEmpty() || deadline.isEmpty()) {
-            return Printer.getDeadlineUsageMessage();
-        }
-        return taskList.addDeadline(description, deadline);
-    }
-    /*
-    Checks that the user has used the event command correctly
-     */
-    private String processEventCommand(String input) {
-        if (input.trim().equalsIgnoreCase("event") || input.length() <= 6) {
-            return Printer.getEventUsageMessage();
-        }
-        // After removing "event ", split by " /from " and " /to "
-        String[] parts = input.substring(6).split(" /from | /to ", 3);
-        if (parts.length < 3) {
-            return Printer.getEventUsageMessage();
-        }
-        String description = parts[0].trim();
-        String from = parts[1].trim();
-        String to = parts[2].trim();
-        // Ensure no empty pieces
-        if (description.isEmpty() || from.isEmpty() || to.isEmpty()) {
-            return Printer.getEventUsageMessage();
-        }
-        return taskList.addEvent(description, from, to);
-    }
-
-    private String processFindCommand(String input) {
-        return taskList.findTasks(input.substring(4).trim());
-    }
-
-    private String processCheerCommand() {
-        try {
-            return taskList.getRandomQuote();
-        } catch (IOException e) {
-            return "Error retrieving cheer message.";
-        }
-    }
-
-    private String processSortCommand() {
-        taskList.sortTasks();
-        return Printer.getTaskListString(taskList.getTasks());
-    }
-
-    private String processByeCommand() {
-        return Printer.printBye();
-    }
-}
+package pawpal.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import pawpal.tasks.DateParser;
+import pawpal.tasks.Task;
+import pawpal.utils.Command;
+import pawpal.utils.Metrics;
+import pawpal.utils.Printer;
+import pawpal.utils.TaskRanges;
+import pawpal.utils.TaskList;
+
+/**
+ * Parses and processes user input for PawPal.
+ */
+class Parser {
+    private static final int DEFAULT_UPCOMING_COUNT = 5;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_TASK_NUMBER_DIGITS = 9;
+    private static final String BY = " /by ";
+    private static final String FROM = " /from ";
+    private static final String TO = " /to ";
+    private static final String AND = " /and ";
+    private static final String BEFORE = "before";
+    private static final String DONE = "done";
+    private static final String FIND = "find";
+    private static final String ALL = "all";
+    private static final char ID_PREFIX = '#';
+
+    private final TaskList taskList;
+
+    public Parser(TaskList taskList) {
+        this.taskList = taskList;
+    }
+
+    public String parse(String input) {
+        return parse(parseCommand(input), input);
+    }
+
+    /**
+     * Processes input whose command has already been resolved by {@link #parseCommand(String)},
+     * recording how long the command took in the metrics and as a {@link ParseEvent}.
+     *
+     * @param command The command resolved from the input.
+     * @param input   The full user input.
+     * @return The response to show the user.
+     */
+    String parse(Command command, String input) {
+        ParseEvent event = new ParseEvent();
+        event.begin();
+        long start = Metrics.start();
+        try {
+            return dispatch(command, input);
+        } finally {
+            Metrics.record(command, start);
+            commit(event, command);
+        }
+    }
+
+    private static void commit(ParseEvent event, Command command) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.command = command.name();
+            event.commit();
+        }
+    }
+
+    private String dispatch(Command command, String input) {
+        switch (command) {
+        case LIST:
+            return processListCommand(input);
+        case MARK:
+            return processMarkCommand(input, true);
+        case UNMARK:
+            return processMarkCommand(input, false);
+        case TODO:
+            return processToDoCommand(input);
+        case DEADLINE:
+            return processDeadlineCommand(input);
+        case EVENT:
+            return processEventCommand(input);
+        case DELETE:
+            return processDeleteCommand(input);
+        case FIND:
+            return processFindCommand(input);
+        case CHEER:
+            return processCheerCommand();
+        case BYE:
+            return processByeCommand();
+        case SORT:
+            return processSortCommand();
+        case DUE:
+            return processDueCommand(input);
+        case BETWEEN:
+            return processBetweenCommand(input);
+        case UPCOMING:
+            return processUpcomingCommand(input);
+        case USE:
+            return Printer.getWorkspaceUnavailableMessage(); // PawPal switches workspaces before reaching here
+        case STATS:
+            return Metrics.IS_ENABLED ? Metrics.report() : Printer.getMetricsDisabledMessage();
+        default:
+            return Printer.getInvalidCommandMessage();
+        }
+    }
+
+    /**
+     * Processes the input and writes the response to the given output.
+     * Task lists are written to the output as they are rendered rather than built in memory first,
+     * so {@code list all} on the console does not hold the whole list as one string.
+     *
+     * @param command The command resolved from the input.
+     * @param input   The full user input.
+     * @param out     Where the response is written.
+     * @throws IOException If the output cannot be written.
+     */
+    void parse(Command command, String input, Appendable out) throws IOException {
+        if (command == Command.LIST) {
+            ParseEvent event = new ParseEvent();
+            event.begin();
+            long start = Metrics.start();
+            try {
+                processListCommand(input, out);
+            } finally {
+                Metrics.record(command, start);
+                commit(event, command);
+            }
+        } else {
+            out.append(parse(command, input));
+        }
+    }
+
+    Command parseCommand(String input) {
+        return Command.fromInput(input);
+    }
+
+    /*
+    Reads the task number that follows the command word, scanning the digits in place.
+    Returns -1 if there is no number, which every task command reports as an invalid task number.
+     */
+    private static int parseTaskNumber(Command command, String input) {
+        int start = skipWhitespace(input, command.getKeywordLength());
+        return parseNumber(input, start, skipToken(input, start));
+    }
+
+    /*
+    Reads the digits between the given indices. Returns -1 if the range is empty or holds anything but digits.
+     */
+    private static int parseNumber(String input, int start, int end) {
+        if (start == end || end - start > MAX_TASK_NUMBER_DIGITS) {
+            return -1;
+        }
+        int number = 0;
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+
+    private static boolean isId(String selection) {
+        return !selection.isEmpty() && selection.charAt(0) == ID_PREFIX;
+    }
+
+    /*
+    Resolves "#<id>" to the task's current number in the given list, or -1 if no task has that ID
+     */
+    private static int taskNumberOfId(TaskList list, String selection) {
+        int id = parseNumber(selection, 1, selection.length());
+        return id <= 0 ? -1 : list.getTaskNumber(id);
+    }
+
+    /*
+    Tells a selection of several tasks ("3,7,9-20", "done", "find <keywords>") apart from a single task number
+     */
+    private static boolean isBulkSelection(String selection) {
+        return selection.indexOf(',') >= 0 || selection.indexOf('-') >= 0 || selection.equalsIgnoreCase(DONE)
+                || selection.regionMatches(true, 0, FIND, 0, FIND.length())
+                && (selection.length() == FIND.length() || isWhitespace(selection.charAt(FIND.length())));
+    }
+
+    /*
+    Resolves a bulk selection into 0-based positions in the given list, or returns null if it names no valid tasks.
+    Called by the task list with its lock held, so the positions are still right when the change is applied.
+     */
+    private static BitSet parseSelection(TaskList list, String selection) {
+        if (selection.equalsIgnoreCase(DONE)) {
+            return list.selectDone();
+        }
+        if (selection.regionMatches(true, 0, FIND, 0, FIND.length())) {
+            return list.selectMatching(selection.substring(FIND.length()));
+        }
+        return TaskRanges.parse(selection, list.getTasks().size());
+    }
+
+    private String processMarkCommand(String input, boolean mark) {
+        Command command = mark ? Command.MARK : Command.UNMARK;
+        String selection = argumentsOf(command, input);
+        if (isId(selection)) {
+            ToIntFunction<TaskList> byId = list -> taskNumberOfId(list, selection);
+            return mark ? taskList.markTask(byId) : taskList.unmarkTask(byId);
+        }
+        if (isBulkSelection(selection)) {
+            Function<TaskList, BitSet> selector = list -> parseSelection(list, selection);
+            return mark ? taskList.markTasks(selector) : taskList.unmarkTasks(selector);
+        }
+        int taskNumber = parseTaskNumber(command, input);
+        return mark ? taskList.markTask(taskNumber) : taskList.unmarkTask(taskNumber);
+    }
+
+    private String processDeleteCommand(String input) {
+        String selection = argumentsOf(Command.DELETE, input);
+        if (isId(selection)) {
+            return taskList.deleteTask(list -> taskNumberOfId(list, selection));
+        }
+        if (isBulkSelection(selection)) {
+            return taskList.deleteTasks(list -> parseSelection(list, selection));
+        }
+        return taskList.deleteTask(parseTaskNumber(Command.DELETE, input));
+    }
+
+    /*
+    Checks that the user has used the Todo command correctly
+     */
+    private String processToDoCommand(String input) {
+        // Extract description
+        String description = argumentsOf(Command.TODO, input);
+        if (description.isEmpty()) {
+            return Printer.getTodoUsageMessage();
+        }
+        // Add the ToDo if valid
+        return taskList.addToDo(description);
+    }
+    /*
+    Checks that the user has used the deadline command correctly
+     */
+    private String processDeadlineCommand(String input) {
+        // Locate " /by " after "deadline "
+        int start = Command.DEADLINE.getKeywordLength() + 1;
+        int by = start < input.length() ? input.indexOf(BY, start) : -1;
+        if (by < 0) {
+            return Printer.getDeadlineUsageMessage();
+        }
+        String description = input.substring(start, by).trim();
+        String deadline = input.substring(by + BY.length()).trim();
+        // Ensure both parts are non-empty
+        if (description.isEmpty() || deadline.isEmpty()) {
+            return Printer.getDeadlineUsageMessage();
+        }
+        return taskList.addDeadline(description, DateParser.resolve(deadline, LocalDateTime.now()));
+    }
+    /*
+    Checks that the user has used the event command correctly
+     */
+    private String processEventCommand(String input) {
+        // Locate " /from " after "event ", then " /to " after it
+        int start = Command.EVENT.getKeywordLength() + 1;
+        int fromIndex = start < input.length() ? input.indexOf(FROM, start) : -1;
+        int toIndex = fromIndex < 0 ? -1 : input.indexOf(TO, fromIndex + FROM.length());
+        if (toIndex < 0) {
+            return Printer.getEventUsageMessage();
+        }
+        String description = input.substring(start, fromIndex).trim();
+        String from = input.substring(fromIndex + FROM.length(), toIndex).trim();
+        String to = input.substring(toIndex + TO.length()).trim();
+        // Ensure no empty pieces
+        if (description.isEmpty() || from.isEmpty() || to.isEmpty()) {
+            return Printer.getEventUsageMessage();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        String resolvedFrom = DateParser.resolve(from, now);
+        String resolvedTo = DateParser.resolve(to, now);
+        long startEpochSecond = DateParser.parse(resolvedFrom);
+        if (startEpochSecond != Task.NO_DATE && startEpochSecond > DateParser.parse(resolvedTo)) {
+            return Printer.getEventOrderMessage(); // Only checked when both ends are dates
+        }
+        return taskList.addEvent(description, resolvedFrom, resolvedTo);
+    }
+
+    private String processFindCommand(String input) {
+        return taskList.findTasks(argumentsOf(Command.FIND, input));
+    }
+
+    /*
+    Handles "due before <date>"
+     */
+    private String processDueCommand(String input) {
+        int start = skipWhitespace(input, Command.DUE.getKeywordLength());
+        int dateStart = start + BEFORE.length();
+        if (!input.regionMatches(true, start, BEFORE, 0, BEFORE.length())
+                || dateStart >= input.length() || !isWhitespace(input.charAt(dateStart))) {
+            return Printer.getDateQueryUsageMessage();
+        }
+        LocalDateTime date = parseDate(input.substring(dateStart), false);
+        return date == null ? Printer.getDateQueryUsageMessage() : taskList.findTasksBefore(date);
+    }
+
+    /*
+    Handles "between <date> /and <date>"
+     */
+    private String processBetweenCommand(String input) {
+        int start = Command.BETWEEN.getKeywordLength();
+        int and = input.indexOf(AND, start);
+        if (and < 0) {
+            return Printer.getDateQueryUsageMessage();
+        }
+        LocalDateTime from = parseDate(input.substring(start, and), false);
+        LocalDateTime to = parseDate(input.substring(and + AND.length()), true);
+        if (from == null || to == null) {
+            return Printer.getDateQueryUsageMessage();
+        }
+        return taskList.findTasksBetween(from, to);
+    }
+
+    /*
+    Handles "upcoming [count]"
+     */
+    private String processUpcomingCommand(String input) {
+        boolean hasCount = skipWhitespace(input, Command.UPCOMING.getKeywordLength()) < input.length();
+        int count = hasCount ? parseTaskNumber(Command.UPCOMING, input) : DEFAULT_UPCOMING_COUNT;
+        if (count <= 0) {
+            return Printer.getDateQueryUsageMessage();
+        }
+        return taskList.findUpcomingTasks(LocalDateTime.now(), count);
+    }
+
+    /*
+    Returns the trimmed text after the command word.
+     */
+    private static String argumentsOf(Command command, String input) {
+        return input.substring(command.getKeywordLength()).trim();
+    }
+
+    private static int skipWhitespace(String input, int index) {
+        while (index < input.length() && isWhitespace(input.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static int skipToken(String input, int index) {
+        while (index < input.length() && !isWhitespace(input.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c <= ' ';
+    }
+
+    /*
+    Parses a date as task dates are parsed, relative dates included. A date without a time stands for the start of
+    that day, or for its end when it closes a range. Returns null if the text is not a date.
+     */
+    private LocalDateTime parseDate(String text, boolean isEndOfRange) {
+        LocalDateTime now = LocalDateTime.now();
+        long date = isEndOfRange ? DateParser.parseEndOfDay(text, now) : DateParser.parse(text, now);
+        return date == Task.NO_DATE ? null : LocalDateTime.ofEpochSecond(date, 0, ZoneOffset.UTC);
+    }
+
+    private String processCheerCommand() {
+        try {
+            return taskList.getRandomQuote();
+        } catch (IOException e) {
+            return "Error retrieving cheer message.";
+        }
+    }
+
+    private String processListCommand(String input) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            processListCommand(input, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+        return sb.toString();
+    }
+
+    /*
+    Handles "list [page] [page size]" and "list all"
+     */
+    private void processListCommand(String input, Appendable out) throws IOException {
+        List<Task> tasks = taskList.getTasks();
+        int pageStart = skipWhitespace(input, Command.LIST.getKeywordLength());
+        int pageEnd = skipToken(input, pageStart);
+        int sizeStart = skipWhitespace(input, pageEnd);
+        int sizeEnd = skipToken(input, sizeStart);
+        if (skipWhitespace(input, sizeEnd) < input.length()) {
+            out.append(Printer.getListUsageMessage());
+            return;
+        }
+        if (pageEnd - pageStart == ALL.length() && sizeStart == sizeEnd
+                && input.regionMatches(true, pageStart, ALL, 0, ALL.length())) {
+            Printer.appendTaskList(tasks, 0, tasks.size(), out);
+            return;
+        }
+        int page = pageStart == pageEnd ? 1 : parseNumber(input, pageStart, pageEnd);
+        int pageSize = sizeStart == sizeEnd ? DEFAULT_PAGE_SIZE : parseNumber(input, sizeStart, sizeEnd);
+        if (page <= 0 || pageSize <= 0) {
+            out.append(Printer.getListUsageMessage());
+            return;
+        }
+        Printer.appendTaskListPage(tasks, page, pageSize, out);
+    }
+
+    private String processSortCommand() {
+        taskList.sortTasks();
+        return Printer.getTaskListPage(taskList.getTasks(), 1, DEFAULT_PAGE_SIZE);
+    }
+
+    private String processByeCommand() {
+        return Printer.printBye();
+    }
+}
@@ -1,78 +1,225 @@
-package pawpal.core;
-
-import java.io.IOException;
-
-import pawpal.utils.Storage;
-import pawpal.utils.TaskList;
-import pawpal.utils.Ui;
-
-/**
- * The main class for the PawPal chatbot application.
- * PawPal allows users to manage tasks such as ToDo, Deadline, and Event tasks.
- * It interacts with the user via the command line.
- */
-public class PawPal {
-    private final Ui ui;
-    private final Storage storage;
-    private final TaskList taskList;
-    private final Parser parser;
-    /**
-     * Constructs a new PawPal.core.PawPal instance.
-     * Initializes the storage, task list, UI, and parser components.
-     */
-    public PawPal() {
-        String filePath = "./data/tasks.txt";
-        this.storage = new Storage(filePath);
-        this.taskList = new TaskList(storage);
-        this.ui = new Ui();
-        this.parser = new Parser(taskList);
-    }
-    /**
-     * The entry point of the PawPal application.
-     *
-     * @param args Command-line arguments (not used).
-     */
-    public static void main(String[] args) {
-        new PawPal().run();
-    }
-    /*
-    Gets the response to reply in the app.
-     */
-    public String getResponse(String input) {
-        try {
-            String response = this.parser.parse(input); // Processes the command
-            storage.saveTasks(taskList.getTasks()); // Save updated tasks after processing
-            return response;
-        } catch (IOException e) {
-            return "An error occurred while saving tasks.";
-        }
-    }
-    /**
-     * Runs the main loop of the PawPal.core.PawPal chatbot.
-     * Continuously reads user input, processes commands, and prints responses.
-     * The loop exits when the user enters the "bye" command.
-     */
-    public void run() {
-        ui.showGreeting();
-
-        // Main input loop
-        while (true) {
-            String input = ui.readCommand();
-
-            // Exit the application when the user types "bye"
-            if (input.equalsIgnoreCase("bye")) {
-                ui.showBye();
-                break;
-            }
-
-            // Pass the user input to the parser for processing
-            parser.parse(input);
-
-            try {
-                storage.saveTasks(taskList.getTasks());
-            } catch (IOException e) {
-                ui.showSavingError();
-            }
-        }
-    }
-}
+package pawpal.core;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import pawpal.utils.Command;
+import pawpal.utils.Metrics;
+import pawpal.utils.Printer;
+import pawpal.utils.Ui;
+
+/**
+ * The main class for the PawPal chatbot application.
+ * PawPal allows users to manage tasks such as ToDo, Deadline, and Event tasks.
+ * It interacts with the user via the command line.
+ */
+public class PawPal {
+    static final String TASK_FILE_PATH = "./data/tasks.txt";
+    private static final String WORKSPACE_LIMIT_PROPERTY = "pawpal.workspaceLimit";
+
+    private final Ui ui;
+    private final Workspaces workspaces;
+    private final Session session = new Session();
+    /**
+     * Constructs a new PawPal.core.PawPal instance.
+     * Initializes the storage, task list, UI, and parser components.
+     */
+    public PawPal() {
+        this(TASK_FILE_PATH);
+    }
+
+    /**
+     * Constructs a PawPal over the tasks in the given file, e.g. a scratch file for a load test.
+     * Other workspaces are kept in a {@code workspaces} directory next to it, and at most
+     * {@code pawpal.workspaceLimit} of them stay loaded while no command is using them.
+     *
+     * @param taskFilePath The task file of the default workspace.
+     */
+    public PawPal(String taskFilePath) {
+        int capacity = Math.max(1, Integer.getInteger(WORKSPACE_LIMIT_PROPERTY, Workspaces.DEFAULT_CAPACITY));
+        this.workspaces = new Workspaces(taskFilePath, capacity);
+        this.ui = new Ui();
+        Workspace workspace = workspaces.acquire(Workspaces.DEFAULT_NAME); // Load the default tasks up front
+        try {
+            String warning = workspace.takeLoadWarning();
+            if (warning != null) {
+                ui.getOutput().println(warning);
+            }
+        } finally {
+            workspaces.release(workspace);
+        }
+        Metrics.startDumpingIfConfigured();
+    }
+    /**
+     * The entry point of the PawPal application.
+     *
+     * @param args Command-line arguments; {@code --batch [<file>]} runs a command script instead of the chat loop,
+     *             and {@code --server [<port>]} serves commands to local clients.
+     */
+    public static void main(String[] args) {
+        if (BatchRunner.isBatch(args)) {
+            System.exit(BatchRunner.run(args, TASK_FILE_PATH));
+        }
+        if (CommandServer.isServer(args)) {
+            System.exit(CommandServer.run(args));
+        }
+        new PawPal().run();
+    }
+    /*
+    Gets the response to reply in the app. Safe to call from several threads at once.
+     */
+    public String getResponse(String input) {
+        return getResponse(session, input);
+    }
+
+    /**
+     * Gets the response to a command from the given session, in the workspace that session is using.
+     * Safe to call from several threads at once. Each call is recorded as a {@link CommandEvent}
+     * for the flight recorder.
+     *
+     * @param session The session the command came from.
+     * @param input   The full user input.
+     * @return The response to show the user.
+     */
+    String getResponse(Session session, String input) {
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        String workspaceName = session.getWorkspaceName();
+        Command command = Command.fromInput(input);
+        String response = respond(session, workspaceName, command, input);
+        event.end();
+        if (event.shouldCommit()) {
+            event.command = command.name();
+            event.workspace = workspaceName;
+            event.inputLength = input.length();
+            event.responseLength = response.length();
+            event.commit();
+        }
+        return response;
+    }
+
+    private String respond(Session session, String workspaceName, Command command, String input) {
+        if (command == Command.USE) {
+            return processUseCommand(session, input);
+        }
+        Workspace workspace = workspaces.acquire(workspaceName);
+        try {
+            return workspace.getResponse(command, input);
+        } catch (IOException e) {
+            return "An error occurred while saving tasks.";
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    /*
+    Switches the session to the named workspace, loading it so that a file that cannot be read is reported now
+     */
+    private String processUseCommand(Session session, String input) {
+        long start = Metrics.start();
+        try {
+            return switchWorkspace(session, input);
+        } finally {
+            Metrics.record(Command.USE, start);
+        }
+    }
+
+    private String switchWorkspace(Session session, String input) {
+        String argument = input.substring(Command.USE.getKeywordLength()).trim();
+        if (argument.isEmpty()) {
+            return Printer.getCurrentWorkspaceMessage(session.getWorkspaceName());
+        }
+        String name = Workspaces.normalize(argument);
+        if (name == null) {
+            return Printer.getWorkspaceUsageMessage();
+        }
+        Workspace workspace;
+        try {
+            workspace = workspaces.acquire(name);
+        } catch (UncheckedIOException e) {
+            return Printer.getWorkspaceLoadingErrorMessage(name);
+        }
+        try {
+            session.setWorkspaceName(name);
+            String warning = workspace.takeLoadWarning();
+            String message = Printer.getWorkspaceSwitchedMessage(name, workspace.getTaskCount());
+            return warning == null ? message : warning + "\n" + message;
+        } finally {
+            workspaces.release(workspace);
+        }
+    }
+
+    /**
+     * Saves every workspace only at checkpoints and on shutdown from now on, as for a command script.
+     *
+     * @param checkpointInterval The number of changes after which a workspace is saved, or 0 to save only at the end.
+     */
+    void beginBulkUpdate(int checkpointInterval) {
+        workspaces.beginBulkUpdate(checkpointInterval);
+    }
+
+    /**
+     * Waits for all pending saves to reach the disk and releases the task files of every workspace.
+     * Should be called once before the application exits.
+     */
+    public void shutdown() {
+        try {
+            closeWorkspaces();
+        } catch (IOException e) {
+            ui.showSavingError();
+        }
+    }
+
+    /**
+     * Like {@link #shutdown()}, but leaves reporting a failed save to the caller.
+     *
+     * @throws IOException If a workspace could not be saved.
+     */
+    void closeWorkspaces() throws IOException {
+        workspaces.close();
+    }
+
+    /**
+     * Runs the main loop of the PawPal.core.PawPal chatbot.
+     * Continuously reads user input, processes commands, and prints responses.
+     * The loop exits when the user enters the "bye" command.
+     */
+    public void run() {
+        ui.showGreeting();
+
+        // Main input loop
+        while (true) {
+            String input = ui.readCommand();
+
+            // Exit the application when the user types "bye"
+            if (input.equalsIgnoreCase("bye")) {
+                shutdown();
+                ui.showBye();
+                break;
+            }
+
+            Command command = Command.fromInput(input);
+            if (command == Command.USE) {
+                ui.getOutput().println(processUseCommand(session, input));
+                continue;
+            }
+
+            // Pass the user input to the current workspace for processing
+            Workspace workspace = workspaces.acquire(session.getWorkspaceName());
+            try {
+                workspace.respond(command, input, ui.getOutput());
+                ui.getOutput().println();
+            } catch (IOException e) {
+                // System.out records errors instead of throwing them
+            }
+
+            try {
+                workspace.persistIfChanged(command);
+            } catch (IOException e) {
+                ui.showSavingError();
+            } finally {
+                workspaces.release(workspace);
+            }
+        }
+    }
+}
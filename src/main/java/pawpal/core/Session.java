@@ -0,0 +1,17 @@
+package pawpal.core;
+
+/**
+ * What one user of a PawPal is working on, e.g. the chat window or one server connection.
+ * Each session switches workspaces with {@code use <name>} without affecting the others.
+ */
+final class Session {
+    private volatile String workspaceName = Workspaces.DEFAULT_NAME;
+
+    String getWorkspaceName() {
+        return workspaceName;
+    }
+
+    void setWorkspaceName(String workspaceName) {
+        this.workspaceName = workspaceName;
+    }
+}
@@ -0,0 +1,169 @@
+package pawpal.core;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import pawpal.utils.Command;
+import pawpal.utils.Durability;
+import pawpal.utils.Printer;
+import pawpal.utils.Storage;
+import pawpal.utils.TaskList;
+
+/**
+ * One named task list with its own task file, e.g. for a project or a person.
+ * A workspace journals its changes in the background like any PawPal task list,
+ * and must be closed to release its files once it is no longer used.
+ */
+final class Workspace {
+    /** Checkpoint interval of a workspace that saves every change, i.e. is not in a bulk update. */
+    static final int NO_BULK_UPDATE = -1;
+    private static final long GROUP_COMMIT_WINDOW_MILLIS = 50;
+
+    private final String name;
+    private final Storage storage;
+    private final TaskList taskList;
+    private final Parser parser;
+    private final AtomicReference<String> loadWarning;
+    private volatile long persistedGeneration;
+    private volatile int checkpointInterval = NO_BULK_UPDATE;
+    private int users; // Guarded by the Workspaces that loaded this workspace
+
+    /**
+     * Loads the workspace from its task file.
+     *
+     * @param name         The name of the workspace.
+     * @param taskFilePath The task file to load and save.
+     * @throws java.io.UncheckedIOException If the task file cannot be read.
+     */
+    Workspace(String name, String taskFilePath) {
+        this.name = name;
+        this.storage = new Storage(taskFilePath, true);
+        this.taskList = new TaskList(storage);
+        this.parser = new Parser(taskList);
+        this.loadWarning = new AtomicReference<>(describeLoad(name, storage));
+        this.persistedGeneration = taskList.getGeneration();
+        // Only now, so a task file that fails to load leaves no writer thread or shutdown hook behind
+        storage.startAsyncWriter(GROUP_COMMIT_WINDOW_MILLIS, Durability.WINDOW);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    int getTaskCount() {
+        return taskList.getTasks().size();
+    }
+
+    /**
+     * Returns what loading the task file had to leave out or recover from, the first time it is asked,
+     * so the user hears about it once however many commands reach the workspace.
+     *
+     * @return The message to show the user, or null if there is nothing (more) to report.
+     */
+    String takeLoadWarning() {
+        return loadWarning.getAndSet(null);
+    }
+
+    private static String describeLoad(String name, Storage storage) {
+        if (storage.getSkippedLineCount() > 0) {
+            return Printer.getSkippedLinesMessage(name, storage.getSkippedLineCount());
+        }
+        return storage.isIncompleteSaveDiscarded() ? Printer.getIncompleteSaveDiscardedMessage(name) : null;
+    }
+
+    /*
+    Counts the commands currently using this workspace; only a workspace nobody uses can be evicted
+     */
+    void addUser(int delta) {
+        users += delta;
+    }
+
+    boolean isInUse() {
+        return users > 0;
+    }
+
+    /**
+     * Runs a command against this workspace's tasks and saves any change it made.
+     *
+     * @param command The command resolved from the input.
+     * @param input   The full user input.
+     * @return The response to show the user.
+     * @throws IOException If the tasks cannot be saved.
+     */
+    String getResponse(Command command, String input) throws IOException {
+        String response = parser.parse(command, input);
+        persistIfChanged(command);
+        if (command == Command.BYE) {
+            storage.flush();
+        }
+        return response;
+    }
+
+    /**
+     * Runs a command against this workspace's tasks, writing the response to the given output.
+     * Changes are not saved until {@link #persistIfChanged(Command)} is called.
+     *
+     * @param command The command resolved from the input.
+     * @param input   The full user input.
+     * @param out     Where the response is written.
+     * @throws IOException If the output cannot be written.
+     */
+    void respond(Command command, String input, Appendable out) throws IOException {
+        parser.parse(command, input, out);
+    }
+
+    /**
+     * Stops journaling each change, as for a command script: from now on the tasks are only saved
+     * after {@code checkpointInterval} changes, on {@code bye} and when the workspace is closed.
+     *
+     * @param checkpointInterval The number of changes after which the tasks are saved, or 0 to save only at the end.
+     */
+    void beginBulkUpdate(int checkpointInterval) {
+        assert checkpointInterval >= 0 : "Checkpoint interval should not be negative";
+        this.checkpointInterval = checkpointInterval;
+        storage.beginBulkUpdate();
+    }
+
+    /**
+     * Persists the task list only if the command could write and the list actually changed,
+     * so read-only and rejected commands never touch the disk. Bye also retries a save that failed earlier.
+     * During a bulk update, changes are only saved at checkpoints.
+     *
+     * @param command The command that was run.
+     * @throws IOException If the tasks cannot be saved.
+     */
+    void persistIfChanged(Command command) throws IOException {
+        if (!command.isMutating() && command != Command.BYE) {
+            return;
+        }
+        int interval = checkpointInterval;
+        boolean isCheckpoint = interval > 0 && taskList.getGeneration() - persistedGeneration >= interval;
+        if (interval == NO_BULK_UPDATE) {
+            persist();
+        } else if (command == Command.BYE || isCheckpoint) {
+            persist();
+            storage.beginBulkUpdate(); // The save ended the bulk update, so resume it until the next checkpoint
+        }
+    }
+
+    private void persist() throws IOException {
+        long generation = taskList.getGeneration();
+        if (generation != persistedGeneration) {
+            taskList.persist();
+            persistedGeneration = generation;
+        }
+    }
+
+    /**
+     * Saves anything not yet saved, waits for it to reach the disk and releases the task files.
+     *
+     * @throws IOException If the tasks cannot be saved or a file cannot be closed.
+     */
+    void close() throws IOException {
+        try {
+            persist();
+        } finally {
+            storage.close();
+        }
+    }
+}
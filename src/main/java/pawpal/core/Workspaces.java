@@ -0,0 +1,264 @@
+package pawpal.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Pattern;
+
+/**
+ * Keeps the most recently used workspaces loaded, so one PawPal can serve many task lists with a bounded heap.
+ * The default workspace is stored in the PawPal task file, and every other workspace in
+ * {@code workspaces/<name>.txt} next to it.
+ * <p>
+ * A command {@link #acquire(String) acquires} its workspace, loading it if needed, and releases it when done.
+ * Loading reads the task file outside the cache's lock, so a cold workspace never holds up commands for others;
+ * commands for the same workspace wait for that one load instead of starting their own.
+ * Once more workspaces are loaded than the cache holds, the least recently used ones that no command is using
+ * are saved and closed. Closing waits for their pending writes, so it happens outside the cache's lock,
+ * and a command for a workspace that is still closing waits until its files are released before reloading it.
+ */
+final class Workspaces implements Closeable {
+    static final String DEFAULT_NAME = "default";
+    static final int DEFAULT_CAPACITY = 16;
+    private static final String DIRECTORY = "workspaces";
+    private static final String FILE_SUFFIX = ".txt";
+    private static final Pattern NAME = Pattern.compile("[a-z0-9][a-z0-9_-]{0,63}");
+
+    private final String defaultFilePath;
+    private final int capacity;
+    private final Map<String, Workspace> loaded = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Workspace> closing = new HashMap<>();
+    private final Map<String, CompletableFuture<Workspace>> loading = new HashMap<>();
+    private IOException evictionFailure;
+    private int checkpointInterval = Workspace.NO_BULK_UPDATE;
+    private boolean isClosed;
+
+    /**
+     * Constructs an empty cache of workspaces.
+     *
+     * @param defaultFilePath The task file of the default workspace.
+     * @param capacity        The number of workspaces kept loaded while not in use; at least 1.
+     */
+    Workspaces(String defaultFilePath, int capacity) {
+        assert capacity > 0 : "Workspace capacity should be positive";
+        this.defaultFilePath = defaultFilePath;
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the name a user typed in the form workspaces are stored under.
+     *
+     * @param name The name as typed.
+     * @return The name in lower case, or null if it is not a valid workspace name.
+     */
+    static String normalize(String name) {
+        String normalized = name.trim().toLowerCase(Locale.ROOT);
+        return NAME.matcher(normalized).matches() ? normalized : null;
+    }
+
+    /**
+     * Returns the named workspace, loading it if needed, and marks it as used until it is
+     * {@link #release(Workspace) released}.
+     *
+     * @param name A name returned by {@link #normalize(String)}.
+     * @return The loaded workspace.
+     */
+    Workspace acquire(String name) {
+        Workspace workspace = null;
+        while (workspace == null) {
+            CompletableFuture<Workspace> pending;
+            boolean isLoader;
+            synchronized (this) {
+                awaitClosed(name);
+                if (isClosed) {
+                    throw new IllegalStateException("Workspaces are closed");
+                }
+                workspace = loaded.get(name);
+                if (workspace != null) {
+                    workspace.addUser(1);
+                    break;
+                }
+                pending = loading.get(name);
+                isLoader = pending == null;
+                if (isLoader) {
+                    pending = new CompletableFuture<>();
+                    loading.put(name, pending);
+                }
+            }
+            if (isLoader) {
+                workspace = load(name, pending);
+            } else {
+                // Look again once it is loaded: it may have been evicted since, or failed to load
+                pending.exceptionally(e -> null).join();
+            }
+        }
+
+        List<Workspace> evicted;
+        synchronized (this) {
+            evicted = evictColdest();
+        }
+        closeAll(evicted);
+        return workspace;
+    }
+
+    /*
+    Loads a workspace without holding the lock and adds it to the cache, used by the caller.
+    Completes the future either way, so commands waiting for the same workspace can go on.
+     */
+    private Workspace load(String name, CompletableFuture<Workspace> pending) {
+        Workspace workspace;
+        try {
+            workspace = new Workspace(name, filePathOf(name));
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                loading.remove(name);
+            }
+            pending.completeExceptionally(e);
+            throw e;
+        }
+
+        boolean isRejected;
+        synchronized (this) {
+            loading.remove(name);
+            isRejected = isClosed;
+            if (!isRejected) {
+                if (checkpointInterval != Workspace.NO_BULK_UPDATE) {
+                    workspace.beginBulkUpdate(checkpointInterval);
+                }
+                workspace.addUser(1);
+                loaded.put(name, workspace);
+            }
+        }
+        pending.complete(workspace);
+        if (isRejected) {
+            closeAll(List.of(workspace)); // The cache was closed while loading, so nobody else will close it
+            throw new IllegalStateException("Workspaces are closed");
+        }
+        return workspace;
+    }
+
+    /**
+     * Puts every workspace, including those loaded later, in a {@link Workspace#beginBulkUpdate(int) bulk update}.
+     *
+     * @param checkpointInterval The number of changes after which a workspace is saved, or 0 to save only at the end.
+     */
+    synchronized void beginBulkUpdate(int checkpointInterval) {
+        this.checkpointInterval = checkpointInterval;
+        loaded.values().forEach(workspace -> workspace.beginBulkUpdate(checkpointInterval));
+    }
+
+    /**
+     * Marks a workspace returned by {@link #acquire(String)} as no longer used by the caller.
+     *
+     * @param workspace The workspace.
+     */
+    void release(Workspace workspace) {
+        List<Workspace> evicted;
+        synchronized (this) {
+            workspace.addUser(-1);
+            evicted = evictColdest();
+        }
+        closeAll(evicted);
+    }
+
+    /**
+     * Saves and closes every loaded workspace, and waits for those being evicted to close.
+     * Commands still using a workspace may fail to save afterwards.
+     *
+     * @throws IOException If a workspace, including one evicted earlier, could not be saved.
+     */
+    @Override
+    public void close() throws IOException {
+        List<Workspace> evicted;
+        synchronized (this) {
+            isClosed = true;
+            evicted = new ArrayList<>(loaded.values());
+            loaded.clear();
+            evicted.forEach(workspace -> closing.put(workspace.getName(), workspace));
+        }
+        closeAll(evicted);
+        synchronized (this) {
+            for (String name : List.copyOf(closing.keySet())) {
+                awaitClosed(name);
+            }
+            if (evictionFailure != null) {
+                throw evictionFailure;
+            }
+        }
+    }
+
+    private String filePathOf(String name) {
+        if (name.equals(DEFAULT_NAME)) {
+            return defaultFilePath;
+        }
+        return Path.of(defaultFilePath).resolveSibling(DIRECTORY).resolve(name + FILE_SUFFIX).toString();
+    }
+
+    /*
+    Removes the least recently used workspaces nobody is using until the cache is back within capacity.
+    Must hold the lock; the caller closes the returned workspaces after letting go of it.
+     */
+    private List<Workspace> evictColdest() {
+        List<Workspace> evicted = new ArrayList<>();
+        Iterator<Workspace> coldestFirst = loaded.values().iterator();
+        while (loaded.size() > capacity && coldestFirst.hasNext()) {
+            Workspace workspace = coldestFirst.next();
+            if (!workspace.isInUse()) {
+                coldestFirst.remove();
+                closing.put(workspace.getName(), workspace);
+                evicted.add(workspace);
+            }
+        }
+        return evicted;
+    }
+
+    /*
+    Closes the given workspaces. A failure cannot be reported to the command that happened to evict them,
+    so the first one is kept until the cache itself is closed.
+     */
+    private void closeAll(List<Workspace> evicted) {
+        for (Workspace workspace : evicted) {
+            IOException failure = null;
+            try {
+                workspace.close();
+            } catch (IOException e) {
+                failure = e;
+            }
+            synchronized (this) {
+                if (evictionFailure == null) {
+                    evictionFailure = failure;
+                } else if (failure != null) {
+                    evictionFailure.addSuppressed(failure);
+                }
+                closing.remove(workspace.getName());
+                notifyAll();
+            }
+        }
+    }
+
+    /*
+    Waits, holding the lock, until the named workspace is not being closed. An interrupt does not cut the wait
+    short, since reloading a workspace before its files are released could lose its last changes.
+     */
+    private void awaitClosed(String name) {
+        boolean isInterrupted = false;
+        while (closing.containsKey(name)) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                isInterrupted = true;
+            }
+        }
+        if (isInterrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package pawpal.tasks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary task file.
+ * Opening a file reads it in one bulk read and checks the header; each task is decoded when it is requested.
+ * <pre>
+ * header   magic "PAWB", version, task count, string count, string table offset (32 bytes)
+ * records  one fixed 40-byte record per task:
+ *          type, done flag, description string, first/second date string, first/second epoch second, stable ID
+ * strings  an offset per string, then each string as a length-prefixed UTF-8 run
+ * </pre>
+ * Dates keep both the entered text, so the file round-trips exactly, and the parsed date as
+ * UTC epoch seconds, so loading never runs a date formatter. Repeated strings are stored once.
+ * Version 1 files, written before tasks had IDs, have 32-byte records without the ID and can still be read.
+ * The file is neither kept open nor memory-mapped, since Windows refuses to replace a file while a mapping
+ * of it is alive, and a mapping is only released when the garbage collector gets to it.
+ */
+public final class BinaryTaskFile implements TaskSource {
+    private static final int MAGIC = 0x50415742; // "PAWB"
+    private static final short VERSION = 2;
+    private static final short VERSION_WITHOUT_IDS = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int RECORD_SIZE = 40;
+    private static final int RECORD_SIZE_WITHOUT_IDS = 32;
+    private static final long NO_DATE = Long.MIN_VALUE;
+    private static final int NO_STRING = -1;
+    private static final byte TODO = 'T';
+    private static final byte DEADLINE = 'D';
+    private static final byte EVENT = 'E';
+
+    private final ByteBuffer buffer;
+    private final int taskCount;
+    private final int recordSize;
+    private final int stringOffsetsStart;
+    private final int stringDataStart;
+
+    private BinaryTaskFile(ByteBuffer buffer, int taskCount, int recordSize, int stringCount,
+            int stringTableOffset) {
+        this.buffer = buffer;
+        this.taskCount = taskCount;
+        this.recordSize = recordSize;
+        this.stringOffsetsStart = stringTableOffset;
+        this.stringDataStart = stringTableOffset + 4 * stringCount;
+    }
+
+    /**
+     * Returns whether the given channel starts with the binary task file header.
+     * The header is read at an absolute position, so the channel position is unchanged.
+     *
+     * @param channel An open file channel.
+     * @return True if the file is a binary task file.
+     * @throws IOException If the channel cannot be read.
+     */
+    public static boolean isBinary(FileChannel channel) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(4);
+        int read = channel.read(magic, 0);
+        return read == 4 && magic.getInt(0) == MAGIC;
+    }
+
+    /**
+     * Reads a binary task file into memory.
+     *
+     * @param file The file to open.
+     * @return A view over the tasks in the file.
+     * @throws IOException If the file cannot be read or is not a valid binary task file.
+     */
+    public static BinaryTaskFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary task file too large: " + file);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break; // The file shrank since its size was read; the header check below catches that
+                }
+            }
+            buffer.flip();
+            if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC
+                    || buffer.getShort(4) != VERSION && buffer.getShort(4) != VERSION_WITHOUT_IDS) {
+                throw new IOException("Not a binary task file: " + file);
+            }
+            int recordSize = buffer.getShort(4) == VERSION ? RECORD_SIZE : RECORD_SIZE_WITHOUT_IDS;
+            int taskCount = buffer.getInt(8);
+            int stringCount = buffer.getInt(12);
+            long stringTableOffset = buffer.getLong(16);
+            if (taskCount < 0 || stringCount < 0 || stringTableOffset != HEADER_SIZE + (long) recordSize * taskCount
+                    || stringTableOffset + 4L * stringCount > buffer.limit()) {
+                throw new IOException("Corrupted binary task file header: " + file);
+            }
+            return new BinaryTaskFile(buffer, taskCount, recordSize, stringCount, (int) stringTableOffset);
+        }
+    }
+
+    /**
+     * Writes tasks in the binary format.
+     *
+     * @param tasks   The tasks to write.
+     * @param channel The channel to write to, positioned at the start of the file.
+     * @throws IOException If the channel cannot be written.
+     */
+    public static void write(List<Task> tasks, WritableByteChannel channel) throws IOException {
+        StringTable strings = new StringTable();
+        ByteBuffer records = ByteBuffer.allocate(HEADER_SIZE + RECORD_SIZE * tasks.size());
+        records.position(HEADER_SIZE);
+        for (Task task : tasks) {
+            int base = records.position();
+            records.put(typeOf(task)).put((byte) (task.isDone() ? 1 : 0));
+            records.putInt(base + 4, strings.idOf(task.getDescription()));
+            switch (task) {
+            case Deadline deadline -> putDates(records, base, strings.idOf(deadline.getDeadline()),
+                    deadline.getDeadlineEpochSecond(), NO_STRING, Task.NO_DATE);
+            case Event event -> putDates(records, base, strings.idOf(event.getStart()),
+                    event.getStartEpochSecond(), strings.idOf(event.getEnd()), event.getEndEpochSecond());
+            default -> putDates(records, base, NO_STRING, Task.NO_DATE, NO_STRING, Task.NO_DATE);
+            }
+            records.putInt(base + 32, task.getId());
+            records.position(base + RECORD_SIZE);
+        }
+
+        records.putInt(0, MAGIC).putShort(4, VERSION).putInt(8, tasks.size()).putInt(12, strings.size())
+                .putLong(16, records.capacity());
+        records.flip();
+        writeFully(records, channel);
+        strings.writeTo(channel);
+    }
+
+    /**
+     * Returns the number of tasks in the file.
+     *
+     * @return The task count from the header.
+     */
+    @Override
+    public int size() {
+        return taskCount;
+    }
+
+    /**
+     * Decodes the task at the given position.
+     *
+     * @param index The 0-based position of the task.
+     * @return A new task object.
+     */
+    @Override
+    public Task get(int index) {
+        if (index < 0 || index >= taskCount) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        int base = HEADER_SIZE + index * recordSize;
+        String description = readString(buffer.getInt(base + 4));
+        Task task = switch (buffer.get(base)) {
+        case DEADLINE -> new Deadline(description, readString(buffer.getInt(base + 8)), readDate(base + 16));
+        case EVENT -> new Event(description, readString(buffer.getInt(base + 8)),
+                readString(buffer.getInt(base + 12)), readDate(base + 16), readDate(base + 24));
+        default -> new ToDo(description);
+        };
+        if (buffer.get(base + 1) != 0) {
+            task.markAsDone();
+        }
+        int id = getId(index);
+        if (id > 0) {
+            task.setId(id);
+        }
+        return task;
+    }
+
+    @Override
+    public int getId(int index) {
+        if (index < 0 || index >= taskCount) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return recordSize == RECORD_SIZE ? buffer.getInt(HEADER_SIZE + index * recordSize + 32) : 0;
+    }
+
+    private static byte typeOf(Task task) {
+        return switch (task) {
+        case Deadline deadline -> DEADLINE;
+        case Event event -> EVENT;
+        default -> TODO;
+        };
+    }
+
+    /*
+    The file marks a missing date with its own NO_DATE, which predates Task.NO_DATE, so files stay compatible
+     */
+    private static void putDates(ByteBuffer records, int base, int firstText, long first,
+            int secondText, long second) {
+        records.putInt(base + 8, firstText).putInt(base + 12, secondText)
+                .putLong(base + 16, first == Task.NO_DATE ? NO_DATE : first)
+                .putLong(base + 24, second == Task.NO_DATE ? NO_DATE : second);
+    }
+
+    private long readDate(int position) {
+        long epochSecond = buffer.getLong(position);
+        return epochSecond == NO_DATE ? Task.NO_DATE : epochSecond;
+    }
+
+    private String readString(int id) {
+        int offset = stringDataStart + buffer.getInt(stringOffsetsStart + 4 * id);
+        byte[] bytes = new byte[buffer.getInt(offset)];
+        buffer.get(offset + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Deduplicated strings in the order they were first seen.
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final ByteBuffer data = ByteBuffer.allocate(1 << 16);
+        private byte[][] encoded = new byte[64][];
+        private int count;
+
+        int idOf(String value) {
+            Integer id = ids.get(value);
+            if (id != null) {
+                return id;
+            }
+            if (count == encoded.length) {
+                encoded = Arrays.copyOf(encoded, count * 2);
+            }
+            encoded[count] = value.getBytes(StandardCharsets.UTF_8);
+            ids.put(value, count);
+            return count++;
+        }
+
+        int size() {
+            return count;
+        }
+
+        void writeTo(WritableByteChannel channel) throws IOException {
+            ByteBuffer offsets = ByteBuffer.allocate(4 * count);
+            int offset = 0;
+            for (int i = 0; i < count; i++) {
+                offsets.putInt(offset);
+                offset += 4 + encoded[i].length;
+            }
+            offsets.flip();
+            writeFully(offsets, channel);
+
+            for (int i = 0; i < count; i++) {
+                if (data.remaining() < 4) {
+                    drain(channel);
+                }
+                data.putInt(encoded[i].length);
+                int written = 0;
+                while (written < encoded[i].length) {
+                    if (!data.hasRemaining()) {
+                        drain(channel);
+                    }
+                    int chunk = Math.min(data.remaining(), encoded[i].length - written);
+                    data.put(encoded[i], written, chunk);
+                    written += chunk;
+                }
+            }
+            drain(channel);
+        }
+
+        private void drain(WritableByteChannel channel) throws IOException {
+            data.flip();
+            writeFully(data, channel);
+            data.clear();
+        }
+    }
+}
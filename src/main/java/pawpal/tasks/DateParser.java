@@ -0,0 +1,282 @@
+package pawpal.tasks;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Reads the dates that users type and that task files store, as epoch seconds (UTC).
+ * <p>
+ * Absolute dates are {@code d/M/yyyy} or {@code yyyy-M-d}, optionally followed by a time as {@code HHmm}
+ * or {@code H:mm}, e.g. {@code 2/12/2019 1800} or {@code 2019-12-02 18:00}. Relative dates are
+ * {@code today}, {@code tomorrow}, or a weekday such as {@code mon} or {@code next monday}, which both
+ * mean the first such day after today; they take the same optional time. A date without a time
+ * stands for the start of that day.
+ * <p>
+ * Input is scanned by hand rather than tried against a chain of formatters, so text that is not a date
+ * is rejected after a look at its first characters, and no exception is thrown either way.
+ * Stored dates repeat a lot, so recently parsed absolute dates are remembered.
+ */
+public final class DateParser {
+    private static final DateTimeFormatter OUTPUT_FORMAT = DateTimeFormatter.ofPattern("MMM dd yyyy, h:mm a");
+    private static final int SECONDS_PER_DAY = 86_400;
+    private static final int END_OF_DAY = SECONDS_PER_DAY - 1;
+    private static final int CACHE_SIZE = 256; // A power of two
+    private static final String NEXT = "next ";
+    private static final String[] WEEKDAYS = {
+        "monday", "tuesday", "wednesday", "thursday", "friday", "saturday", "sunday"
+    };
+
+    /*
+    Direct-mapped cache of absolute dates. Entries are immutable, so threads may race on a slot
+    and at worst miss a hit.
+     */
+    private static final Entry[] cache = new Entry[CACHE_SIZE];
+
+    private record Entry(String text, long epochSecond) {
+    }
+
+    private DateParser() {
+    }
+
+    /**
+     * Parses an absolute date, as stored in task files.
+     *
+     * @param text The date as entered.
+     * @return The date in epoch seconds, or {@link Task#NO_DATE} if the text is not an absolute date.
+     */
+    public static long parse(String text) {
+        int slot = text.hashCode() & (CACHE_SIZE - 1);
+        Entry entry = cache[slot];
+        if (entry != null && entry.text().equals(text)) {
+            return entry.epochSecond();
+        }
+        long epochSecond = parse(text, null, 0);
+        cache[slot] = new Entry(text, epochSecond);
+        return epochSecond;
+    }
+
+    /**
+     * Parses an absolute or relative date.
+     *
+     * @param text The date as typed.
+     * @param now  The time that relative dates are counted from.
+     * @return The date in epoch seconds, or {@link Task#NO_DATE} if the text is not a date.
+     */
+    public static long parse(String text, LocalDateTime now) {
+        return parse(text, now.toLocalDate(), 0);
+    }
+
+    /**
+     * Parses an absolute or relative date, reading a date without a time as the end of that day.
+     *
+     * @param text The date as typed.
+     * @param now  The time that relative dates are counted from.
+     * @return The date in epoch seconds, or {@link Task#NO_DATE} if the text is not a date.
+     */
+    public static long parseEndOfDay(String text, LocalDateTime now) {
+        return parse(text, now.toLocalDate(), END_OF_DAY);
+    }
+
+    /**
+     * Turns a relative date into the absolute date it means now, so that it keeps meaning the same day later.
+     *
+     * @param text The date as typed.
+     * @param now  The time that relative dates are counted from.
+     * @return The date as {@code d/M/yyyy HHmm}, or {@code d/M/yyyy} if it has no time;
+     *         the text unchanged if it is absolute or not a date.
+     */
+    public static String resolve(String text, LocalDateTime now) {
+        String trimmed = text.trim();
+        if (trimmed.isEmpty() || !Character.isLetter(trimmed.charAt(0))) {
+            return text;
+        }
+        long start = parse(trimmed, now.toLocalDate(), 0);
+        if (start == Task.NO_DATE) {
+            return text;
+        }
+        LocalDateTime date = LocalDateTime.ofEpochSecond(start, 0, ZoneOffset.UTC);
+        String day = date.getDayOfMonth() + "/" + date.getMonthValue() + "/" + date.getYear();
+        boolean hasTime = parse(trimmed, now.toLocalDate(), END_OF_DAY) == start;
+        return hasTime ? day + " " + String.format("%02d%02d", date.getHour(), date.getMinute()) : day;
+    }
+
+    /**
+     * Formats a parsed date for display, falling back to the text as entered if it has no date.
+     *
+     * @param epochSecond The date in epoch seconds, or {@link Task#NO_DATE}.
+     * @param text        The date as entered.
+     * @return The date in the output format, e.g. {@code Dec 02 2019, 6:00 PM}.
+     */
+    static String format(long epochSecond, String text) {
+        if (epochSecond == Task.NO_DATE) {
+            return text;
+        }
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC).format(OUTPUT_FORMAT);
+    }
+
+    /*
+    Parses a date and an optional time. Relative dates are only accepted when today is given.
+     */
+    private static long parse(String text, LocalDate today, int defaultSecondOfDay) {
+        Cursor in = new Cursor(text);
+        in.skipSpaces();
+        long epochDay = in.isDigitNext() ? in.readAbsoluteDay() : in.readRelativeDay(today);
+        if (epochDay == Long.MIN_VALUE) {
+            return Task.NO_DATE;
+        }
+        int secondOfDay = defaultSecondOfDay;
+        if (in.skipSpaces() && !in.isAtEnd()) {
+            secondOfDay = in.readTime();
+        }
+        in.skipSpaces();
+        if (secondOfDay < 0 || !in.isAtEnd()) {
+            return Task.NO_DATE;
+        }
+        return epochDay * SECONDS_PER_DAY + secondOfDay;
+    }
+
+    /**
+     * Cursor over the text being parsed. Readers return {@code Long.MIN_VALUE} or -1 when the text does not fit.
+     */
+    private static final class Cursor {
+        private final String text;
+        private int position;
+
+        Cursor(String text) {
+            this.text = text;
+        }
+
+        boolean isAtEnd() {
+            return position == text.length();
+        }
+
+        boolean isDigitNext() {
+            return !isAtEnd() && isDigit(text.charAt(position));
+        }
+
+        /*
+        Returns whether any whitespace was skipped
+         */
+        boolean skipSpaces() {
+            int start = position;
+            while (!isAtEnd() && text.charAt(position) <= ' ') {
+                position++;
+            }
+            return position > start;
+        }
+
+        /*
+        d/M/yyyy or yyyy-M-d. Like the formatter this replaces, a day past the end of the month
+        means the last day of that month.
+         */
+        long readAbsoluteDay() {
+            int start = position;
+            int first = readNumber(4);
+            int firstLength = position - start;
+            if (first < 0 || isAtEnd()) {
+                return Long.MIN_VALUE;
+            }
+            char separator = text.charAt(position++);
+            int second = readNumber(2);
+            if (second < 0 || isAtEnd() || text.charAt(position++) != separator) {
+                return Long.MIN_VALUE;
+            }
+            int thirdStart = position;
+            int third = readNumber(4);
+            int thirdLength = position - thirdStart;
+            if (separator == '/' && firstLength <= 2 && thirdLength == 4) {
+                return toEpochDay(third, second, first);
+            }
+            if (separator == '-' && firstLength == 4 && thirdLength <= 2) {
+                return toEpochDay(first, second, third);
+            }
+            return Long.MIN_VALUE;
+        }
+
+        /*
+        today, tomorrow, or [next] <weekday>, matched case-insensitively
+         */
+        long readRelativeDay(LocalDate today) {
+            if (today == null) {
+                return Long.MIN_VALUE;
+            }
+            if (matchWord("today")) {
+                return today.toEpochDay();
+            }
+            if (matchWord("tomorrow")) {
+                return today.toEpochDay() + 1;
+            }
+            if (text.regionMatches(true, position, NEXT, 0, NEXT.length())) {
+                position += NEXT.length();
+                skipSpaces();
+            }
+            for (int i = 0; i < WEEKDAYS.length; i++) {
+                if (matchWord(WEEKDAYS[i]) || matchWord(WEEKDAYS[i].substring(0, 3))) {
+                    int daysAhead = DayOfWeek.of(i + 1).getValue() - today.getDayOfWeek().getValue();
+                    return today.toEpochDay() + (daysAhead <= 0 ? daysAhead + 7 : daysAhead);
+                }
+            }
+            return Long.MIN_VALUE;
+        }
+
+        /*
+        HHmm or H:mm, as a second of the day
+         */
+        int readTime() {
+            int start = position;
+            int hour = readNumber(4);
+            int minute;
+            if (hour >= 0 && position - start == 4) {
+                minute = hour % 100;
+                hour /= 100;
+            } else if (hour >= 0 && position - start <= 2 && !isAtEnd() && text.charAt(position) == ':') {
+                position++;
+                int minuteStart = position;
+                minute = readNumber(2);
+                if (position - minuteStart != 2) {
+                    return -1;
+                }
+            } else {
+                return -1;
+            }
+            if (hour > 23 || minute < 0 || minute > 59) {
+                return -1;
+            }
+            return hour * 3600 + minute * 60;
+        }
+
+        private boolean matchWord(String word) {
+            int end = position + word.length();
+            if (!text.regionMatches(true, position, word, 0, word.length())
+                    || end < text.length() && text.charAt(end) > ' ') {
+                return false;
+            }
+            position = end;
+            return true;
+        }
+
+        private int readNumber(int maxDigits) {
+            int start = position;
+            int number = 0;
+            while (isDigitNext() && position - start < maxDigits) {
+                number = number * 10 + (text.charAt(position++) - '0');
+            }
+            return position > start ? number : -1;
+        }
+
+        private static boolean isDigit(char c) {
+            return c >= '0' && c <= '9';
+        }
+
+        private static long toEpochDay(int year, int month, int day) {
+            if (month < 1 || month > 12 || day < 1 || day > 31) {
+                return Long.MIN_VALUE;
+            }
+            LocalDate firstOfMonth = LocalDate.of(year, month, 1);
+            return firstOfMonth.toEpochDay() + Math.min(day, firstOfMonth.lengthOfMonth()) - 1;
+        }
+    }
+}
@@ -1,69 +1,90 @@
-package pawpal.tasks;
-
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
-import java.util.Optional;
-
-/**
- * Represents a task that has a specific time range (start and end).
- * Extends the Task class by adding start and end times.
- */
-public class Event extends Task {
-    private static final DateTimeFormatter INPUT_FORMAT = DateTimeFormatter.ofPattern("d/M/yyyy HHmm");
-    private static final DateTimeFormatter OUTPUT_FORMAT = DateTimeFormatter.ofPattern("MMM dd yyyy, h:mm a");
-
-    private final String start;
-    private final String end;
-    private final Optional<LocalDateTime> startDateTime;
-    private final Optional<LocalDateTime> endDateTime;
-
-    /**
-     * Constructs a new Event task.
-     *
-     * @param description The description of the event task.
-     * @param start       The starting time of the event.
-     * @param end         The ending time of the event.
-     */
-    public Event(String description, String start, String end) {
-        super(description);
-        this.start = start;
-        this.end = end;
-        this.startDateTime = parseDateTime(start);
-        this.endDateTime = parseDateTime(end);
-
-        assert startDateTime.isEmpty() || endDateTime.isEmpty() || !startDateTime.get().isAfter(endDateTime.get())
-                : "Event start date/time should not be after end date/time";
-    }
-
-    /**
-     * Parses the given date-time string into LocalDateTime if possible.
-     *
-     * @param dateTime The input date-time string.
-     * @return An Optional containing the parsed LocalDateTime, or empty if parsing fails.
-     */
-    private Optional<LocalDateTime> parseDateTime(String dateTime) {
-        try {
-            return Optional.of(LocalDateTime.parse(dateTime, INPUT_FORMAT));
-        } catch (DateTimeParseException e) {
-            return Optional.empty();
-        }
-    }
-
-    /**
-     * Returns the string representation of the event task.
-     *
-     * @return A string in the format "[E][status] description from: start to: end".
-     */
-    @Override
-    public String toString() {
-        String formattedStart = startDateTime
-                .map(dateTime -> dateTime.format(OUTPUT_FORMAT))
-                .orElse(start);
-        String formattedEnd = endDateTime
-                .map(dateTime -> dateTime.format(OUTPUT_FORMAT))
-                .orElse(end);
-
-        return "[E]" + super.toString() + " from: " + formattedStart + " to: " + formattedEnd;
-    }
-}
+package pawpal.tasks;
+
+/**
+ * Represents a task that has a specific time range (start and end).
+ * Extends the Task class by adding start and end times.
+ */
+public class Event extends Task {
+    private final String start;
+    private final String end;
+    private volatile long startEpochSecond = NOT_PARSED; // Parsed on first use
+    private volatile long endEpochSecond = NOT_PARSED; // Parsed on first use
+
+    /**
+     * Constructs a new Event task.
+     *
+     * @param description The description of the event task.
+     * @param start       The starting time of the event.
+     * @param end         The ending time of the event.
+     */
+    public Event(String description, String start, String end) {
+        super(description);
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Constructs an Event whose dates were already parsed, e.g. when loading a binary task file.
+     *
+     * @param description      The description of the event task.
+     * @param start            The start exactly as it was entered.
+     * @param end              The end exactly as it was entered.
+     * @param startEpochSecond The parsed start in epoch seconds, or {@link #NO_DATE} if it is not a date.
+     * @param endEpochSecond   The parsed end in epoch seconds, or {@link #NO_DATE} if it is not a date.
+     */
+    Event(String description, String start, String end, long startEpochSecond, long endEpochSecond) {
+        super(description);
+        this.start = start;
+        this.end = end;
+        this.startEpochSecond = startEpochSecond;
+        this.endEpochSecond = endEpochSecond;
+    }
+
+    /**
+     * Returns the start of the event exactly as it was entered.
+     *
+     * @return The start text.
+     */
+    public String getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the end of the event exactly as it was entered.
+     *
+     * @return The end text.
+     */
+    public String getEnd() {
+        return end;
+    }
+
+    long getStartEpochSecond() {
+        if (startEpochSecond == NOT_PARSED) {
+            startEpochSecond = DateParser.parse(start);
+        }
+        return startEpochSecond;
+    }
+
+    long getEndEpochSecond() {
+        if (endEpochSecond == NOT_PARSED) {
+            endEpochSecond = DateParser.parse(end);
+        }
+        return endEpochSecond;
+    }
+
+    @Override
+    public long getSortEpochSecond() {
+        return getStartEpochSecond();
+    }
+
+    /**
+     * Renders the event task for display.
+     *
+     * @return A string in the format "[E][status] description from: start to: end".
+     */
+    @Override
+    protected String render() {
+        return "[E]" + super.render() + " from: " + DateParser.format(getStartEpochSecond(), start)
+                + " to: " + DateParser.format(getEndEpochSecond(), end);
+    }
+}
@@ -1,100 +1,182 @@
-package pawpal.tasks;
-
-import java.time.LocalDateTime;
-import java.util.Optional;
-
-/**
- * Represents a generic task with a description and completion status.
- * This class serves as the base class for specific task types such as ToDo, Deadline, and Event.
- */
-public class Task implements Comparable<Task> {
-
-    protected String description;
-    protected boolean isDone;
-
-    /**
-     * Constructs a new Task instance.
-     *
-     * @param description The description of the task.
-     */
-    public Task(String description) {
-        this.description = description;
-        assert description.isEmpty() : "Description should not be empty!";
-        this.isDone = false; // Tasks are not done by default
-    }
-
-    /**
-     * Returns the status icon representing the task's completion status.
-     *
-     * @return "X" if the task is done, otherwise a blank space " ".
-     */
-    public String getStatusIcon() {
-        return (isDone ? "X" : " ");
-    }
-
-    /**
-     * Marks the task as completed.
-     */
-    public void markAsDone() {
-        isDone = true;
-    }
-
-    /**
-     * Marks the task as not completed.
-     */
-    public void markAsNotDone() {
-        isDone = false;
-    }
-
-    /**
-     * Returns the description of the task.
-     *
-     * @return The task description.
-     */
-    public String getDescription() {
-        return description;
-    }
-    /**
-     * Returns priority order of task type:
-     * 0 - ToDo
-     * 1 - Deadline
-     * 2 - Event
-     */
-    protected int getTaskTypePriority() {
-        return switch (this) {
-            case ToDo toDo -> 0;
-            case Deadline deadline -> 1;
-            case Event event -> 2;
-            default -> 3;
-        };
-    }
-
-    /**
-     * Retrieves the relevant date-time for sorting.
-     * ToDo tasks return MAX value to always stay in order.
-     */
-    protected Optional<LocalDateTime> getSortDateTime() {
-        return Optional.empty(); // Default for ToDo tasks
-    }
-
-    @Override
-    public int compareTo(Task other) {
-        int typeComparison = Integer.compare(this.getTaskTypePriority(), other.getTaskTypePriority());
-        if (typeComparison != 0) {
-            return typeComparison; // Sort by task type first
-        }
-        // If same type, compare by date
-        return this.getSortDateTime().orElse(LocalDateTime.MAX)
-                .compareTo(other.getSortDateTime().orElse(LocalDateTime.MAX));
-    }
-
-    /**
-     * Returns the string representation of the task.
-     *
-     * @return A string in the format "[status] description".
-     */
-    @Override
-    public String toString() {
-        return "[" + getStatusIcon() + "] " + description;
-    }
-}
+package pawpal.tasks;
+
+/**
+ * Represents a generic task with a description and completion status.
+ * This class serves as the base class for specific task types such as ToDo, Deadline, and Event.
+ * Dates are kept as epoch seconds (UTC) and the rendered string is cached until the task changes,
+ * so listing, sorting and saving a long list do not format dates over and over.
+ * <p>
+ * Once a task is in a task list that other threads can read, it is not changed any more;
+ * {@link #withDone(boolean)} returns a changed copy instead, which replaces the task in the next version of the list.
+ * What is still computed on first use, the rendered string and the parsed dates, comes out the same
+ * whichever reader computes it.
+ */
+public class Task implements Comparable<Task>, Cloneable {
+    /** Epoch second of a task without a date; later than any real date, so such tasks sort last. */
+    public static final long NO_DATE = Long.MAX_VALUE;
+    /** Epoch second of a date that has not been parsed yet. */
+    static final long NOT_PARSED = Long.MIN_VALUE;
+
+    protected String description;
+    protected boolean isDone;
+    private int id;
+    private String rendered;
+
+    /**
+     * Constructs a new Task instance.
+     *
+     * @param description The description of the task.
+     */
+    public Task(String description) {
+        this.description = description;
+        assert !description.isEmpty() : "Description should not be empty!";
+        this.isDone = false; // Tasks are not done by default
+    }
+
+    /**
+     * Returns the status icon representing the task's completion status.
+     *
+     * @return "X" if the task is done, otherwise a blank space " ".
+     */
+    public String getStatusIcon() {
+        return (isDone ? "X" : " ");
+    }
+
+    /**
+     * Marks the task as completed.
+     */
+    public void markAsDone() {
+        if (!isDone) {
+            isDone = true;
+            rendered = null;
+        }
+    }
+
+    /**
+     * Marks the task as not completed.
+     */
+    public void markAsNotDone() {
+        if (isDone) {
+            isDone = false;
+            rendered = null;
+        }
+    }
+
+    /**
+     * Returns this task with the given completion status, copying it if the status changes.
+     * Unlike {@link #markAsDone()}, this leaves the task itself untouched for anyone still reading it.
+     *
+     * @param isDone Whether the returned task is done.
+     * @return This task if it already has that status, otherwise a copy with the same ID that has it.
+     */
+    public Task withDone(boolean isDone) {
+        if (this.isDone == isDone) {
+            return this;
+        }
+        try {
+            Task copy = (Task) clone();
+            copy.isDone = isDone;
+            copy.rendered = null;
+            return copy;
+        } catch (CloneNotSupportedException e) {
+            throw new AssertionError(e); // Task is Cloneable
+        }
+    }
+
+    /**
+     * Returns whether the task is completed.
+     *
+     * @return True if the task is done.
+     */
+    public boolean isDone() {
+        return isDone;
+    }
+
+    /**
+     * Returns the stable ID of the task. Unlike its number in the list, the ID never changes
+     * when other tasks are deleted or the list is sorted, and it is saved with the task.
+     *
+     * @return The ID, or 0 if none has been assigned yet.
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Assigns the stable ID of the task. Called once, by the task list or when the task is loaded.
+     *
+     * @param id The ID, a positive number that no other task in the list has.
+     */
+    public void setId(int id) {
+        assert id > 0 : "Task ID should be positive";
+        this.id = id;
+    }
+
+    /**
+     * Returns the description of the task.
+     *
+     * @return The task description.
+     */
+    public String getDescription() {
+        return description;
+    }
+    /**
+     * Returns priority order of task type:
+     * 0 - ToDo
+     * 1 - Deadline
+     * 2 - Event
+     */
+    protected int getTaskTypePriority() {
+        return switch (this) {
+            case ToDo toDo -> 0;
+            case Deadline deadline -> 1;
+            case Event event -> 2;
+            default -> 3;
+        };
+    }
+
+    /**
+     * Retrieves the relevant date for sorting and date queries, in epoch seconds (UTC):
+     * the deadline of a Deadline or the start of an Event.
+     * ToDo tasks, and tasks whose dates are not in the date format, have none and sort last.
+     *
+     * @return The date of the task, or {@link #NO_DATE} if it has none.
+     */
+    public long getSortEpochSecond() {
+        return NO_DATE; // Default for ToDo tasks
+    }
+
+    @Override
+    public int compareTo(Task other) {
+        int typeComparison = Integer.compare(this.getTaskTypePriority(), other.getTaskTypePriority());
+        if (typeComparison != 0) {
+            return typeComparison; // Sort by task type first
+        }
+        // If same type, compare by date
+        return Long.compare(this.getSortEpochSecond(), other.getSortEpochSecond());
+    }
+
+    /**
+     * Returns the string representation of the task, rendering it only once until the task changes.
+     *
+     * @return The rendered task, e.g. "[T][X] read book".
+     */
+    @Override
+    public String toString() {
+        String text = rendered;
+        if (text == null) {
+            text = render();
+            rendered = text;
+        }
+        return text;
+    }
+
+    /**
+     * Renders the task for display. Subclasses add their type and dates around this.
+     *
+     * @return A string in the format "[status] description".
+     */
+    protected String render() {
+        return "[" + getStatusIcon() + "] " + description;
+    }
+}
@@ -0,0 +1,286 @@
+package pawpal.tasks;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Converts tasks to and from the lines of the task file.
+ * Unlike {@link Task#toString()}, the encoding keeps the exact text the user entered for
+ * every field, so a task survives any number of save and load cycles unchanged.
+ * Fields are separated by {@code |}; a backslash escapes {@code |}, {@code \} and line breaks.
+ * The task's stable ID follows as a last field; lines saved before tasks had IDs end without it.
+ * <pre>
+ * T|1|read book|1
+ * D|0|return book|2/12/2019 1800|2
+ * E|0|project meeting|2/12/2019 1400|2/12/2019 1600|7
+ * </pre>
+ */
+public final class TaskCodec {
+    private static final char SEPARATOR = '|';
+    private static final char ESCAPE = '\\';
+    private static final int MAX_ID_DIGITS = 9;
+    private static final int NO_ID_FIELD = -1;
+    private static final int MALFORMED = -2;
+    private static final DateTimeFormatter INPUT_FORMAT = DateTimeFormatter.ofPattern("d/M/yyyy HHmm");
+    private static final DateTimeFormatter OUTPUT_FORMAT = DateTimeFormatter.ofPattern("MMM dd yyyy, h:mm a");
+
+    private TaskCodec() {
+    }
+
+    /**
+     * Appends the encoded form of a task to the given builder, without a line terminator.
+     *
+     * @param task The task to encode.
+     * @param out  The builder to append to.
+     */
+    public static void encode(Task task, StringBuilder out) {
+        switch (task) {
+        case Deadline deadline -> {
+            appendHeader('D', task, out);
+            appendField(deadline.getDeadline(), out);
+        }
+        case Event event -> {
+            appendHeader('E', task, out);
+            appendField(event.getStart(), out);
+            appendField(event.getEnd(), out);
+        }
+        default -> appendHeader('T', task, out);
+        }
+        if (task.getId() > 0) {
+            out.append(SEPARATOR).append(task.getId());
+        }
+    }
+
+    /**
+     * Returns the encoded form of a task.
+     *
+     * @param task The task to encode.
+     * @return A single line describing the task.
+     */
+    public static String encode(Task task) {
+        StringBuilder sb = new StringBuilder();
+        encode(task, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Decodes one line of the task file.
+     *
+     * @param line An encoded task.
+     * @return The decoded task, or null if the line is not a valid encoding or has no description.
+     */
+    public static Task decode(String line) {
+        if (line.length() < 4 || line.charAt(1) != SEPARATOR || line.charAt(3) != SEPARATOR) {
+            return null;
+        }
+        char type = line.charAt(0);
+        char status = line.charAt(2);
+        if (status != '0' && status != '1') {
+            return null;
+        }
+
+        String[] fields = new String[4];
+        int fieldCount = splitFields(line, 4, fields);
+        int expectedFieldCount = switch (type) {
+        case 'T' -> 1;
+        case 'D' -> 2;
+        case 'E' -> 3;
+        default -> -1;
+        };
+        if (expectedFieldCount < 0) {
+            return null;
+        }
+        int id = 0;
+        if (fieldCount == expectedFieldCount + 1) {
+            id = parseId(fields[expectedFieldCount]);
+            if (id <= 0) {
+                return null;
+            }
+        } else if (fieldCount != expectedFieldCount) {
+            return null;
+        }
+        if (fields[0].isEmpty()) {
+            return null;
+        }
+
+        Task task = switch (type) {
+        case 'T' -> new ToDo(fields[0]);
+        case 'D' -> new Deadline(fields[0], fields[1]);
+        default -> new Event(fields[0], fields[1], fields[2]);
+        };
+        if (id > 0) {
+            task.setId(id);
+        }
+        if (status == '1') {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    /**
+     * Checks, without decoding, whether a UTF-8 encoded line is a valid task encoding.
+     * A line that passes is guaranteed to be accepted by {@link #decode(String)}.
+     *
+     * @param bytes The buffer holding the line.
+     * @param start The index of the first byte of the line.
+     * @param end   The index just past the last byte of the line, excluding the line terminator.
+     * @return True if the line can be decoded.
+     */
+    public static boolean isWellFormed(byte[] bytes, int start, int end) {
+        if (end - start < 5 || bytes[start + 1] != SEPARATOR || bytes[start + 3] != SEPARATOR
+                || (bytes[start + 2] != '0' && bytes[start + 2] != '1') || bytes[start + 4] == SEPARATOR) {
+            return false; // Every task needs a description
+        }
+        int idStart = findIdField(bytes, start, end);
+        return idStart == NO_ID_FIELD || idStart >= 0 && parseId(bytes, idStart, end) > 0;
+    }
+
+    /**
+     * Reads the stable ID of a well-formed line without decoding the rest of it.
+     *
+     * @param bytes The buffer holding the line.
+     * @param start The index of the first byte of the line.
+     * @param end   The index just past the last byte of the line, excluding the line terminator.
+     * @return The ID, or 0 if the line was saved without one.
+     */
+    public static int readId(byte[] bytes, int start, int end) {
+        int idStart = findIdField(bytes, start, end);
+        return idStart >= 0 ? parseId(bytes, idStart, end) : 0;
+    }
+
+    /**
+     * Recovers the entered form of a date that an older version saved in its display format.
+     *
+     * @param displayed A date as shown by {@link Task#toString()}.
+     * @return The date in the input format, or the text unchanged if it was never parsed as a date.
+     */
+    public static String fromDisplayDate(String displayed) {
+        if (displayed.isEmpty() || !Character.isLetter(displayed.charAt(0))) {
+            return displayed;
+        }
+        try {
+            return LocalDateTime.parse(displayed, OUTPUT_FORMAT).format(INPUT_FORMAT);
+        } catch (DateTimeParseException e) {
+            return displayed;
+        }
+    }
+
+    /*
+    Returns where the ID field starts, NO_ID_FIELD if the line has just the fields of its type,
+    or MALFORMED if it has neither that many fields nor one more.
+     */
+    private static int findIdField(byte[] bytes, int start, int end) {
+        int expectedSeparators = switch (bytes[start]) {
+        case 'T' -> 0;
+        case 'D' -> 1;
+        case 'E' -> 2;
+        default -> -1;
+        };
+        int separators = 0;
+        int lastSeparator = -1;
+        for (int i = start + 4; i < end; i++) {
+            if (bytes[i] == ESCAPE) {
+                i++;
+            } else if (bytes[i] == SEPARATOR) {
+                separators++;
+                lastSeparator = i;
+            }
+        }
+        if (expectedSeparators >= 0 && separators == expectedSeparators) {
+            return NO_ID_FIELD;
+        }
+        return expectedSeparators >= 0 && separators == expectedSeparators + 1 ? lastSeparator + 1 : MALFORMED;
+    }
+
+    /*
+    Reads an ID of 1 to MAX_ID_DIGITS digits, returning 0 if the bytes are anything else
+     */
+    private static int parseId(byte[] bytes, int start, int end) {
+        if (start == end || end - start > MAX_ID_DIGITS) {
+            return 0;
+        }
+        int id = 0;
+        for (int i = start; i < end; i++) {
+            if (bytes[i] < '0' || bytes[i] > '9') {
+                return 0;
+            }
+            id = id * 10 + (bytes[i] - '0');
+        }
+        return id;
+    }
+
+    private static int parseId(String field) {
+        if (field.isEmpty() || field.length() > MAX_ID_DIGITS) {
+            return 0;
+        }
+        int id = 0;
+        for (int i = 0; i < field.length(); i++) {
+            char c = field.charAt(i);
+            if (c < '0' || c > '9') {
+                return 0;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    private static void appendHeader(char type, Task task, StringBuilder out) {
+        out.append(type).append(SEPARATOR).append(task.isDone() ? '1' : '0').append(SEPARATOR);
+        appendEscaped(task.getDescription(), out);
+    }
+
+    private static void appendField(String value, StringBuilder out) {
+        out.append(SEPARATOR);
+        appendEscaped(value, out);
+    }
+
+    private static void appendEscaped(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == SEPARATOR || c == ESCAPE) {
+                out.append(ESCAPE).append(c);
+            } else if (c == '\n') {
+                out.append(ESCAPE).append('n');
+            } else if (c == '\r') {
+                out.append(ESCAPE).append('r');
+            } else {
+                out.append(c);
+            }
+        }
+    }
+
+    /*
+    Splits line[start..] into at most fields.length fields and returns how many were found,
+    or fields.length + 1 if there are too many. Fields without escapes are plain substrings.
+     */
+    private static int splitFields(String line, int start, String[] fields) {
+        int count = 0;
+        int fieldStart = start;
+        StringBuilder escaped = null;
+        for (int i = start; i <= line.length(); i++) {
+            char c = i < line.length() ? line.charAt(i) : SEPARATOR;
+            if (c == ESCAPE && i + 1 < line.length()) {
+                if (escaped == null) {
+                    escaped = new StringBuilder();
+                }
+                escaped.append(line, fieldStart, i);
+                char next = line.charAt(++i);
+                escaped.append(next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+                fieldStart = i + 1;
+            } else if (c == SEPARATOR) {
+                if (count == fields.length) {
+                    return count + 1;
+                }
+                if (escaped == null) {
+                    fields[count++] = line.substring(fieldStart, i);
+                } else {
+                    fields[count++] = escaped.append(line, fieldStart, i).toString();
+                    escaped = null;
+                }
+                fieldStart = i + 1;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,31 @@
+package pawpal.tasks;
+
+/**
+ * Read-only, indexed access to the tasks stored in a task file.
+ * Implementations decode a task only when it is requested.
+ */
+public interface TaskSource {
+    /**
+     * Returns the number of tasks in the source.
+     *
+     * @return The task count.
+     */
+    int size();
+
+    /**
+     * Decodes the task at the given position.
+     * Callers are expected to keep the result rather than request the same position again.
+     *
+     * @param index The 0-based position of the task.
+     * @return The decoded task.
+     */
+    Task get(int index);
+
+    /**
+     * Returns the stable ID of the task at the given position without decoding it.
+     *
+     * @param index The 0-based position of the task.
+     * @return The ID, or 0 if the file does not store one for this task.
+     */
+    int getId(int index);
+}
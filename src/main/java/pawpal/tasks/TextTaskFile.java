@@ -0,0 +1,130 @@
+package pawpal.tasks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * A task file in the {@link TaskCodec} text format, held as raw bytes plus the offsets of its lines.
+ * Reading the file only checks the shape of each line; a line becomes a task when it is requested.
+ */
+public final class TextTaskFile implements TaskSource {
+    private final byte[] bytes;
+    private final int[] lineStarts;
+    private final int[] lineEnds;
+    private final Task[] decoded;
+    private final int size;
+    private final int skippedLineCount;
+
+    private TextTaskFile(byte[] bytes, int[] lineStarts, int[] lineEnds, Task[] decoded, int size,
+            int skippedLineCount) {
+        this.bytes = bytes;
+        this.lineStarts = lineStarts;
+        this.lineEnds = lineEnds;
+        this.decoded = decoded;
+        this.size = size;
+        this.skippedLineCount = skippedLineCount;
+    }
+
+    /**
+     * Reads a task file and indexes its lines. Blank and malformed lines are skipped;
+     * {@link #getSkippedLineCount()} tells how many were malformed.
+     * Lines in the display format of older versions (starting with {@code [}) are decoded
+     * right away by {@code legacyDecoder}, since they are only met once before being migrated.
+     *
+     * @param file          The file to read.
+     * @param legacyDecoder Decodes a legacy line, returning null if it is malformed.
+     * @return The indexed file.
+     * @throws IOException If the file cannot be read.
+     */
+    public static TextTaskFile read(Path file, Function<String, Task> legacyDecoder) throws IOException {
+        byte[] bytes = Files.readAllBytes(file);
+        int[] starts = new int[16];
+        int[] ends = new int[16];
+        Task[] decoded = null;
+        int count = 0;
+        int skipped = 0;
+
+        int start = 0;
+        while (start < bytes.length) {
+            int end = start;
+            while (end < bytes.length && bytes[end] != '\n') {
+                end++;
+            }
+            int next = end + 1;
+            if (end > start && bytes[end - 1] == '\r') {
+                end--;
+            }
+
+            Task legacyTask = null;
+            boolean isValid = false;
+            if (end > start && bytes[start] == '[') {
+                legacyTask = legacyDecoder.apply(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+                isValid = legacyTask != null;
+            } else if (end > start) {
+                isValid = TaskCodec.isWellFormed(bytes, start, end);
+            }
+            if (end > start && !isValid) {
+                skipped++;
+            }
+
+            if (isValid) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                    ends = Arrays.copyOf(ends, count * 2);
+                    decoded = decoded == null ? null : Arrays.copyOf(decoded, count * 2);
+                }
+                if (legacyTask != null) {
+                    decoded = decoded == null ? new Task[starts.length] : decoded;
+                    decoded[count] = legacyTask;
+                }
+                starts[count] = start;
+                ends[count] = end;
+                count++;
+            }
+            start = next;
+        }
+        return new TextTaskFile(bytes, starts, ends, decoded, count, skipped);
+    }
+
+    /**
+     * Returns how many lines were left out because they are not a task in either format.
+     *
+     * @return The number of malformed lines.
+     */
+    public int getSkippedLineCount() {
+        return skippedLineCount;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Task get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        if (decoded != null && decoded[index] != null) {
+            return decoded[index];
+        }
+        String line = new String(bytes, lineStarts[index], lineEnds[index] - lineStarts[index],
+                StandardCharsets.UTF_8);
+        return TaskCodec.decode(line);
+    }
+
+    @Override
+    public int getId(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        if (decoded != null && decoded[index] != null) {
+            return decoded[index].getId();
+        }
+        return TaskCodec.readId(bytes, lineStarts[index], lineEnds[index]);
+    }
+}
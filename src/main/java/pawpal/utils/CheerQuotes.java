@@ -0,0 +1,197 @@
+package pawpal.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Pool of cheer quotes read from a text file, one quote per non-blank line.
+ * The file is read once and its lines are indexed by byte offset, so picking a quote only decodes
+ * that one line. A background thread watches the file and the next request after a change reloads it.
+ * If the file cannot be watched, it is re-read on every request instead.
+ */
+class CheerQuotes {
+    private final Path file;
+    private volatile Index index;
+    private volatile boolean isStale = true;
+    private WatchService watcher;
+
+    /**
+     * Constructs a pool for the given file and starts watching it.
+     *
+     * @param file The quote file.
+     */
+    CheerQuotes(Path file) {
+        this.file = file.toAbsolutePath();
+        startWatching();
+    }
+
+    boolean isFor(Path other) {
+        return file.equals(other.toAbsolutePath());
+    }
+
+    /**
+     * Returns a random quote from the file.
+     *
+     * @return A quote, or a message saying that the file is missing or has no quotes.
+     * @throws IOException If the file cannot be read.
+     */
+    String getRandomQuote() throws IOException {
+        Index current = index;
+        if (isStale || current == null) {
+            current = reload();
+        }
+        if (current == null) {
+            return "File not found!";
+        }
+        if (current.count == 0) {
+            return "No cheers found!";
+        }
+        return current.get(ThreadLocalRandom.current().nextInt(current.count));
+    }
+
+    /**
+     * Stops watching the file.
+     *
+     * @throws IOException If the watch service cannot be closed.
+     */
+    synchronized void close() throws IOException {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+        isStale = true;
+    }
+
+    /*
+    The stale flag is cleared before reading, so a change made while the file is being read
+    marks it stale again and is picked up by the next request.
+     */
+    private synchronized Index reload() throws IOException {
+        if (!isStale && index != null) {
+            return index;
+        }
+        isStale = watcher == null;
+        try {
+            index = Index.of(Files.readAllBytes(file));
+        } catch (NoSuchFileException e) {
+            index = null;
+        }
+        return index;
+    }
+
+    private void startWatching() {
+        WatchService watchService;
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            watcher = watchService;
+            file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        } catch (IOException | UnsupportedOperationException e) {
+            closeQuietly();
+            return;
+        }
+        Thread thread = new Thread(() -> watch(watchService), "pawpal-cheer-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void watch(WatchService watchService) {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    Object changed = event.context();
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW || file.getFileName().equals(changed)) {
+                        isStale = true;
+                    }
+                }
+                if (!key.reset()) {
+                    // The directory itself is gone, so fall back to reading the file on every request
+                    closeQuietly();
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed by close(); stop watching
+        }
+    }
+
+    private synchronized void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            // Nothing is left to release
+        }
+    }
+
+    /**
+     * Start and end offsets of the non-blank lines in the quote file, trimmed of surrounding whitespace.
+     */
+    private static final class Index {
+        private final byte[] bytes;
+        private final int[] starts;
+        private final int[] ends;
+        private final int count;
+
+        private Index(byte[] bytes, int[] starts, int[] ends, int count) {
+            this.bytes = bytes;
+            this.starts = starts;
+            this.ends = ends;
+            this.count = count;
+        }
+
+        static Index of(byte[] bytes) {
+            int[] starts = new int[16];
+            int[] ends = new int[16];
+            int count = 0;
+            int lineStart = 0;
+            for (int i = 0; i <= bytes.length; i++) {
+                if (i < bytes.length && bytes[i] != '\n') {
+                    continue;
+                }
+                int start = lineStart;
+                int end = i;
+                while (start < end && isWhitespace(bytes[start])) {
+                    start++;
+                }
+                while (end > start && isWhitespace(bytes[end - 1])) {
+                    end--;
+                }
+                if (start < end) {
+                    if (count == starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                        ends = Arrays.copyOf(ends, count * 2);
+                    }
+                    starts[count] = start;
+                    ends[count] = end;
+                    count++;
+                }
+                lineStart = i + 1;
+            }
+            return new Index(bytes, starts, ends, count);
+        }
+
+        String get(int i) {
+            return new String(bytes, starts[i], ends[i] - starts[i], StandardCharsets.UTF_8);
+        }
+
+        /*
+        Matches String.trim(): control characters and spaces. Bytes of multi-byte UTF-8
+        characters are negative, so they never count as whitespace.
+         */
+        private static boolean isWhitespace(byte b) {
+            return b >= 0 && b <= ' ';
+        }
+    }
+}
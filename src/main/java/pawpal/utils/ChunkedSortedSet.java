@@ -0,0 +1,237 @@
+package pawpal.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Immutable sorted set kept as a directory of small sorted arrays.
+ * {@link #with(Collection, Collection)} copies only the directory and the arrays that change,
+ * so a changed set shares almost all of its elements with the set it was made from
+ * and a change costs time proportional to the number of arrays, not the number of elements.
+ * <p>
+ * Being immutable, a set can be read by several threads at once without locking.
+ *
+ * @param <E> The type of the elements.
+ */
+final class ChunkedSortedSet<E> {
+    private static final int CHUNK_SIZE = 256;
+    private static final int MAX_CHUNK_SIZE = 2 * CHUNK_SIZE;
+    private static final int MIN_CHUNK_SIZE = CHUNK_SIZE / 4;
+
+    private final Comparator<? super E> order;
+    private final Object[][] chunks;
+
+    private ChunkedSortedSet(Comparator<? super E> order, Object[][] chunks) {
+        this.order = order;
+        this.chunks = chunks;
+    }
+
+    /**
+     * Builds a set holding the given elements.
+     *
+     * @param elements The elements, in any order and without duplicates.
+     * @param order    The order to keep the elements in.
+     * @return The set.
+     */
+    static <E> ChunkedSortedSet<E> of(Collection<? extends E> elements, Comparator<? super E> order) {
+        Object[] sorted = elements.toArray();
+        sortElements(sorted, order);
+        List<Object[]> chunks = new ArrayList<>(sorted.length / CHUNK_SIZE + 1);
+        for (int start = 0; start < sorted.length; start += CHUNK_SIZE) {
+            chunks.add(Arrays.copyOfRange(sorted, start, Math.min(start + CHUNK_SIZE, sorted.length)));
+        }
+        return new ChunkedSortedSet<>(order, chunks.toArray(new Object[0][]));
+    }
+
+    /**
+     * Returns a copy of the set with some elements removed and others added, leaving this set as it is.
+     *
+     * @param removed Elements of this set to remove.
+     * @param added   Elements not in this set to add.
+     * @return The changed copy.
+     */
+    ChunkedSortedSet<E> with(Collection<? extends E> removed, Collection<? extends E> added) {
+        if (removed.isEmpty() && added.isEmpty()) {
+            return this;
+        }
+        Object[] removals = removed.toArray();
+        Object[] additions = added.toArray();
+        sortElements(removals, order);
+        sortElements(additions, order);
+
+        Object[][] next = new Object[3 * chunks.length + additions.length / CHUNK_SIZE + 3][];
+        int count = 0;
+        int removal = 0;
+        int addition = 0;
+        int copied = 0;
+        while (removal < removals.length || addition < additions.length) {
+            Object first = removal == removals.length ? additions[addition]
+                    : addition == additions.length ? removals[removal]
+                    : min(removals[removal], additions[addition]);
+            int c = chunkOf(first);
+            System.arraycopy(chunks, copied, next, count, c - copied);
+            count += c - copied;
+            boolean isLast = c >= chunks.length - 1;
+            int removalEnd = isLast ? removals.length : upTo(removals, removal, chunks[c + 1][0]);
+            int additionEnd = isLast ? additions.length : upTo(additions, addition, chunks[c + 1][0]);
+            Object[] chunk = c < chunks.length ? chunks[c] : new Object[0];
+            Object[] merged = merge(chunk, removals, removal, removalEnd, additions, addition, additionEnd);
+            count = addMerged(next, count, merged);
+            removal = removalEnd;
+            addition = additionEnd;
+            copied = Math.min(c + 1, chunks.length);
+        }
+        System.arraycopy(chunks, copied, next, count, chunks.length - copied);
+        count += chunks.length - copied;
+        return new ChunkedSortedSet<>(order, Arrays.copyOf(next, count));
+    }
+
+    /*
+    Returns the index of the chunk an element belongs in: the last one starting at or before it, or the first
+     */
+    @SuppressWarnings("unchecked")
+    private int chunkOf(Object element) {
+        int low = 1;
+        int high = chunks.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (order.compare((E) chunks[mid][0], (E) element) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object min(Object a, Object b) {
+        return order.compare((E) a, (E) b) <= 0 ? a : b;
+    }
+
+    /*
+    Returns the index just past the sorted elements from start on that come before the bound
+     */
+    @SuppressWarnings("unchecked")
+    private int upTo(Object[] elements, int start, Object bound) {
+        int end = start;
+        while (end < elements.length && order.compare((E) elements[end], (E) bound) < 0) {
+            end++;
+        }
+        return end;
+    }
+
+    /*
+    Applies the sorted removals and additions that fall within a chunk, copying the runs of elements
+    between them rather than comparing every element.
+     */
+    @SuppressWarnings("unchecked")
+    private Object[] merge(Object[] chunk, Object[] removals, int removal, int removalEnd,
+            Object[] additions, int addition, int additionEnd) {
+        Object[] merged = new Object[chunk.length + additionEnd - addition];
+        int count = 0;
+        int copied = 0;
+        while (removal < removalEnd || addition < additionEnd) {
+            boolean isAddition = removal == removalEnd
+                    || addition < additionEnd && order.compare((E) additions[addition], (E) removals[removal]) < 0;
+            Object change = isAddition ? additions[addition++] : removals[removal++];
+            int at = insertionPoint(chunk, copied, (E) change);
+            System.arraycopy(chunk, copied, merged, count, at - copied);
+            count += at - copied;
+            copied = at;
+            if (isAddition) {
+                merged[count++] = change;
+            } else if (copied < chunk.length && order.compare((E) chunk[copied], (E) change) == 0) {
+                copied++;
+            }
+        }
+        System.arraycopy(chunk, copied, merged, count, chunk.length - copied);
+        count += chunk.length - copied;
+        return Arrays.copyOf(merged, count);
+    }
+
+    /*
+    Adds a changed chunk to the directory and returns the new chunk count. The chunk is dropped if empty,
+    split if too large, and joined to the previous chunk if both are small, so the directory stays short.
+     */
+    private static int addMerged(Object[][] next, int count, Object[] chunk) {
+        if (chunk.length == 0) {
+            return count;
+        }
+        if (chunk.length > MAX_CHUNK_SIZE) {
+            for (int start = 0; start < chunk.length; start += CHUNK_SIZE) {
+                next[count++] = Arrays.copyOfRange(chunk, start, Math.min(start + CHUNK_SIZE, chunk.length));
+            }
+            return count;
+        }
+        Object[] previous = count == 0 ? null : next[count - 1];
+        if (previous != null && chunk.length < MIN_CHUNK_SIZE && previous.length + chunk.length <= CHUNK_SIZE) {
+            Object[] joined = Arrays.copyOf(previous, previous.length + chunk.length);
+            System.arraycopy(chunk, 0, joined, previous.length, chunk.length);
+            next[count - 1] = joined;
+            return count;
+        }
+        next[count++] = chunk;
+        return count;
+    }
+
+    /**
+     * Visits the elements from the first one not before {@code from}, in order, until the visitor returns false.
+     *
+     * @param from    The element to start at, which need not be in the set.
+     * @param visitor Called with each element; returns whether to continue.
+     */
+    @SuppressWarnings("unchecked")
+    void forEachFrom(E from, Predicate<? super E> visitor) {
+        int low = 0;
+        int high = chunks.length;
+        while (low < high) { // Finds the first chunk whose last element is not before from
+            int mid = (low + high) >>> 1;
+            Object[] chunk = chunks[mid];
+            if (order.compare((E) chunk[chunk.length - 1], from) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        for (int c = low; c < chunks.length; c++) {
+            Object[] chunk = chunks[c];
+            int start = c == low ? insertionPoint(chunk, 0, from) : 0;
+            for (int i = start; i < chunk.length; i++) {
+                if (!visitor.test((E) chunk[i])) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the first element not before the given one.
+     *
+     * @param element The element to look for, which need not be in the set.
+     * @return The element found, or null if every element comes before the given one.
+     */
+    E ceiling(E element) {
+        List<E> found = new ArrayList<>(1);
+        forEachFrom(element, candidate -> {
+            found.add(candidate);
+            return false;
+        });
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private int insertionPoint(Object[] chunk, int start, E element) {
+        int index = Arrays.binarySearch(chunk, start, chunk.length, element, (a, b) -> order.compare((E) a, (E) b));
+        return index >= 0 ? index : -index - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> void sortElements(Object[] elements, Comparator<? super E> order) {
+        Arrays.sort(elements, (a, b) -> order.compare((E) a, (E) b));
+    }
+}
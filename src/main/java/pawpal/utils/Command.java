@@ -1,8 +1,77 @@
-package pawpal.utils;
-
-/**
- * List of accepted commands by PawPal.
- */
-public enum Command {
-    LIST, MARK, UNMARK, TODO, DEADLINE, EVENT, DELETE, FIND, CHEER, BYE, SORT, INVALID
-}
+package pawpal.utils;
+
+import java.util.Arrays;
+
+/**
+ * List of accepted commands by PawPal.
+ * Each command is classified by whether it can modify the task list.
+ */
+public enum Command {
+    LIST(false), MARK(true), UNMARK(true), TODO(true), DEADLINE(true), EVENT(true), DELETE(true),
+    FIND(false), CHEER(false), BYE(false), SORT(true), DUE(false), BETWEEN(false), UPCOMING(false),
+    USE(false), STATS(false), INVALID(false);
+
+    private static final Command[][] COMMANDS_BY_LENGTH = indexByLength();
+
+    private final boolean isMutating;
+
+    Command(boolean isMutating) {
+        this.isMutating = isMutating;
+    }
+
+    /**
+     * Returns the command named by the first space-separated word of the input, ignoring case.
+     * The word is compared in place against the commands of the same length, so no substring is created.
+     *
+     * @param input The user input.
+     * @return The named command, or {@code INVALID} if the first word is not a command.
+     */
+    public static Command fromInput(String input) {
+        int end = input.indexOf(' ');
+        int length = end < 0 ? input.length() : end;
+        if (length >= COMMANDS_BY_LENGTH.length) {
+            return INVALID;
+        }
+        for (Command command : COMMANDS_BY_LENGTH[length]) {
+            if (input.regionMatches(true, 0, command.name(), 0, length)) {
+                return command;
+            }
+        }
+        return INVALID;
+    }
+
+    /**
+     * Returns the length of the command word, which is where the command's arguments start.
+     *
+     * @return The number of characters in the command word.
+     */
+    public int getKeywordLength() {
+        return name().length();
+    }
+
+    /**
+     * Returns whether the command can change the task list and therefore may need to be persisted.
+     *
+     * @return True for write commands, false for read-only commands.
+     */
+    public boolean isMutating() {
+        return isMutating;
+    }
+
+    private static Command[][] indexByLength() {
+        int maxLength = 0;
+        for (Command command : values()) {
+            maxLength = Math.max(maxLength, command.name().length());
+        }
+        Command[][] commands = new Command[maxLength + 1][0];
+        for (Command command : values()) {
+            if (command != INVALID) {
+                Command[] sameLength = commands[command.name().length()];
+                sameLength = Arrays.copyOf(sameLength, sameLength.length + 1);
+                sameLength[sameLength.length - 1] = command;
+                commands[command.name().length()] = sameLength;
+            }
+        }
+        return commands;
+    }
+}
@@ -0,0 +1,125 @@
+package pawpal.utils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+import pawpal.tasks.Task;
+
+/**
+ * Deadlines and events kept sorted by date, so that date range queries only visit the tasks they return.
+ * Each task is keyed by its {@link Task#getSortEpochSecond() sort date} in epoch seconds, and tasks with
+ * the same date by the order key of their position; tasks without a date are not indexed.
+ * <p>
+ * Like {@link KeywordIndex}, an index never changes once built, and changes go into a copy.
+ */
+class DateIndex {
+    private static final Comparator<Entry> ORDER = Comparator.comparingLong(Entry::date)
+            .thenComparingLong(Entry::key);
+
+    private final ChunkedSortedSet<Entry> entries;
+
+    /*
+    A dated task, with its completion status so that upcoming tasks are found without looking them up
+     */
+    private record Entry(long date, long key, boolean isDone) {
+    }
+
+    private DateIndex(ChunkedSortedSet<Entry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Builds the index of every dated task in a list.
+     *
+     * @param tasks The tasks to index.
+     * @return The index.
+     */
+    static DateIndex of(LazyTaskList tasks) {
+        List<Entry> all = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (task.getSortEpochSecond() != Task.NO_DATE) {
+                all.add(new Entry(task.getSortEpochSecond(), tasks.getKey(i), task.isDone()));
+            }
+        }
+        return new DateIndex(ChunkedSortedSet.of(all, ORDER));
+    }
+
+    /**
+     * Returns a copy of the index with some tasks removed and others added, leaving this index as it is.
+     *
+     * @param removed The tasks to remove, by order key.
+     * @param added   The tasks to add, by order key.
+     * @return The updated copy.
+     */
+    DateIndex with(Map<Long, Task> removed, Map<Long, Task> added) {
+        return new DateIndex(entries.with(entriesOf(removed), entriesOf(added)));
+    }
+
+    private static List<Entry> entriesOf(Map<Long, Task> tasks) {
+        List<Entry> result = new ArrayList<>();
+        tasks.forEach((key, task) -> {
+            if (task.getSortEpochSecond() != Task.NO_DATE) {
+                result.add(new Entry(task.getSortEpochSecond(), key, task.isDone()));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Returns the tasks dated strictly before the given date, earliest first.
+     *
+     * @param date The exclusive upper bound.
+     * @return The order keys of the matching tasks.
+     */
+    List<Long> findBefore(LocalDateTime date) {
+        return collect(Long.MIN_VALUE, toKey(date) - 1, Integer.MAX_VALUE, true);
+    }
+
+    /**
+     * Returns the tasks dated within the given range, earliest first.
+     *
+     * @param from The inclusive lower bound.
+     * @param to   The inclusive upper bound.
+     * @return The order keys of the matching tasks, or none if {@code from} is after {@code to}.
+     */
+    List<Long> findBetween(LocalDateTime from, LocalDateTime to) {
+        if (from.isAfter(to)) {
+            return List.of();
+        }
+        return collect(toKey(from), toKey(to), Integer.MAX_VALUE, true);
+    }
+
+    /**
+     * Returns the first unfinished tasks dated at or after the given date, earliest first.
+     *
+     * @param from  The inclusive lower bound, typically the current time.
+     * @param count The maximum number of tasks to return.
+     * @return The order keys of the matching tasks.
+     */
+    List<Long> findUpcoming(LocalDateTime from, int count) {
+        return collect(toKey(from), Long.MAX_VALUE, count, false);
+    }
+
+    private List<Long> collect(long from, long to, int limit, boolean isDoneIncluded) {
+        List<Long> result = new ArrayList<>();
+        entries.forEachFrom(new Entry(from, Long.MIN_VALUE, false), entry -> {
+            if (entry.date() > to || result.size() == limit) {
+                return false;
+            }
+            if (isDoneIncluded || !entry.isDone()) {
+                result.add(entry.key());
+            }
+            return true;
+        });
+        return result;
+    }
+
+    private static long toKey(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,14 @@
+package pawpal.utils;
+
+/**
+ * How eagerly the background storage writer forces written data to the storage device.
+ * Stronger settings lose fewer changes on a power failure but cost more disk latency.
+ */
+public enum Durability {
+    /** Writes every change as soon as it arrives and forces it before accepting more. */
+    COMMIT,
+    /** Groups the changes of one commit window into a single write and forces it once. */
+    WINDOW,
+    /** Groups changes like {@link #WINDOW} but leaves flushing to the operating system. */
+    NONE
+}
@@ -0,0 +1,319 @@
+package pawpal.utils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import pawpal.tasks.Deadline;
+import pawpal.tasks.Event;
+import pawpal.tasks.Task;
+import pawpal.tasks.ToDo;
+
+/**
+ * Append-only log of task list mutations, kept next to the task snapshot file.
+ * Each line holds one record: a CRC32 of the payload, an operation code and its arguments,
+ * separated by tabs. Replaying the log on top of the last snapshot rebuilds the task list.
+ */
+class Journal {
+
+    /**
+     * Mutations that can be recorded in the journal.
+     */
+    enum Op {
+        ADD_TODO('T'), ADD_DEADLINE('D'), ADD_EVENT('E'), DELETE('X'), MARK('M'), UNMARK('U'), SORT('S'),
+        DELETE_ALL('x'), MARK_ALL('m'), UNMARK_ALL('u');
+
+        private final char code;
+
+        Op(char code) {
+            this.code = code;
+        }
+
+        static Op fromCode(char code) {
+            for (Op op : values()) {
+                if (op.code == code) {
+                    return op;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final char SEPARATOR = '\t';
+
+    private final File file;
+    private FileChannel channel;
+    private int recordCount;
+
+    /**
+     * Constructs a journal backed by the given file.
+     *
+     * @param filePath The path of the journal file.
+     */
+    Journal(String filePath) {
+        this.file = new File(filePath);
+    }
+
+    int getRecordCount() {
+        return recordCount;
+    }
+
+    long length() {
+        return file.length();
+    }
+
+    /**
+     * Appends already encoded records to the journal in a single write.
+     *
+     * @param records The records produced by {@link #encode(Op, String...)}.
+     * @throws IOException If the records cannot be written.
+     */
+    void append(List<String> records) throws IOException {
+        if (records.isEmpty()) {
+            return;
+        }
+        if (channel == null) {
+            file.getAbsoluteFile().getParentFile().mkdirs();
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        }
+        long start = Metrics.start();
+        StringBuilder sb = new StringBuilder();
+        for (String record : records) {
+            sb.append(record).append('\n');
+        }
+        ByteBuffer buffer = StandardCharsets.UTF_8.encode(sb.toString());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        recordCount += records.size();
+        Metrics.record(Metrics.Stage.APPEND_JOURNAL, start, buffer.limit());
+    }
+
+    /**
+     * Forces appended records to the storage device.
+     *
+     * @throws IOException If the journal cannot be synced.
+     */
+    void sync() throws IOException {
+        if (channel != null) {
+            long start = Metrics.start();
+            channel.force(false);
+            Metrics.record(Metrics.Stage.SYNC_JOURNAL, start, 0);
+        }
+    }
+
+    /**
+     * Applies every intact record in the journal to the given tasks, in order.
+     * A record that is damaged (e.g. a line torn by a crash) or no longer applies ends the replay.
+     *
+     * @param tasks The tasks loaded from the last snapshot.
+     * @return True if the whole journal was replayed, false if it stopped at a damaged record.
+     * @throws IOException If the journal cannot be read.
+     */
+    boolean replay(List<Task> tasks) throws IOException {
+        recordCount = 0;
+        if (!file.exists()) {
+            return true;
+        }
+        try (BufferedReader reader = new BufferedReader(new FileReader(file, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                List<String> fields = decode(line);
+                if (fields == null || !apply(tasks, fields)) {
+                    return false;
+                }
+                recordCount++;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Closes and deletes the journal, typically after its records were folded into a snapshot.
+     *
+     * @throws IOException If the journal file cannot be closed.
+     */
+    void reset() throws IOException {
+        close();
+        file.delete();
+        recordCount = 0;
+    }
+
+    /**
+     * Closes the underlying file channel, if open.
+     *
+     * @throws IOException If the channel cannot be closed.
+     */
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private static boolean apply(List<Task> tasks, List<String> fields) {
+        Op op = Op.fromCode(fields.get(0).charAt(0));
+        if (op == null) {
+            return false;
+        }
+        try {
+            applyOp(tasks, op, fields);
+            return true;
+        } catch (IndexOutOfBoundsException | NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static void applyOp(List<Task> tasks, Op op, List<String> fields) {
+        switch (op) {
+        case ADD_TODO:
+            tasks.add(withId(new ToDo(fields.get(1)), fields, 2));
+            break;
+        case ADD_DEADLINE:
+            tasks.add(withId(new Deadline(fields.get(1), fields.get(2)), fields, 3));
+            break;
+        case ADD_EVENT:
+            tasks.add(withId(new Event(fields.get(1), fields.get(2), fields.get(3)), fields, 4));
+            break;
+        case DELETE:
+            tasks.remove(Integer.parseInt(fields.get(1)) - 1);
+            break;
+        case MARK:
+            tasks.get(Integer.parseInt(fields.get(1)) - 1).markAsDone();
+            break;
+        case UNMARK:
+            tasks.get(Integer.parseInt(fields.get(1)) - 1).markAsNotDone();
+            break;
+        case SORT:
+            Collections.sort(tasks);
+            break;
+        case DELETE_ALL:
+            TaskRanges.removeAll(tasks, parseRanges(fields.get(1), tasks.size()));
+            break;
+        case MARK_ALL:
+            parseRanges(fields.get(1), tasks.size()).stream().forEach(i -> tasks.get(i).markAsDone());
+            break;
+        case UNMARK_ALL:
+            parseRanges(fields.get(1), tasks.size()).stream().forEach(i -> tasks.get(i).markAsNotDone());
+            break;
+        default:
+            break;
+        }
+    }
+
+    /*
+    Records written before tasks had IDs end without one; their tasks are given an ID by the task list
+     */
+    private static Task withId(Task task, List<String> fields, int idField) {
+        if (fields.size() > idField) {
+            int id = Integer.parseInt(fields.get(idField));
+            if (id <= 0) {
+                throw new NumberFormatException("Task ID must be positive: " + id);
+            }
+            task.setId(id);
+        }
+        return task;
+    }
+
+    private static BitSet parseRanges(String text, int taskCount) {
+        BitSet positions = TaskRanges.parse(text, taskCount);
+        if (positions == null) {
+            throw new IndexOutOfBoundsException("Task numbers out of range: " + text);
+        }
+        return positions;
+    }
+
+    /**
+     * Encodes a mutation as a single journal line, without the line terminator.
+     *
+     * @param op   The mutation to record.
+     * @param args The arguments of the mutation.
+     * @return The checksummed record.
+     */
+    static String encode(Op op, String... args) {
+        StringBuilder payload = new StringBuilder().append(op.code);
+        for (String arg : args) {
+            payload.append(SEPARATOR);
+            escape(arg, payload);
+        }
+        return Long.toHexString(checksum(payload)) + SEPARATOR + payload;
+    }
+
+    /**
+     * Splits a journal line into its unescaped fields, or returns null if the line is damaged.
+     */
+    private static List<String> decode(String line) {
+        int start = line.indexOf(SEPARATOR);
+        if (start <= 0 || start == line.length() - 1) {
+            return null;
+        }
+        String payload = line.substring(start + 1);
+        try {
+            if (Long.parseLong(line.substring(0, start), 16) != checksum(payload)) {
+                return null;
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        for (int i = 0; i < payload.length(); i++) {
+            char c = payload.charAt(i);
+            if (c == SEPARATOR) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\\' && i + 1 < payload.length()) {
+                char next = payload.charAt(++i);
+                field.append(next == 't' ? '\t' : next == 'n' ? '\n' : next == 'r' ? '\r' : next);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static void escape(String value, StringBuilder out) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+            case '\\':
+                out.append("\\\\");
+                break;
+            case '\t':
+                out.append("\\t");
+                break;
+            case '\n':
+                out.append("\\n");
+                break;
+            case '\r':
+                out.append("\\r"); // readLine also ends a line at a lone carriage return
+                break;
+            default:
+                out.append(c);
+            }
+        }
+    }
+
+    private static long checksum(CharSequence payload) {
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < payload.length(); i++) {
+            char c = payload.charAt(i);
+            crc.update(c >>> 8);
+            crc.update(c);
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,156 @@
+package pawpal.utils;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import pawpal.tasks.Task;
+
+/**
+ * Inverted index from the words of task descriptions to the tasks containing them.
+ * Words are lower-cased runs of letters and digits, kept sorted so that a query word
+ * matches every indexed word it is a prefix of. Tasks are identified by the order key of
+ * their position in the list, see {@link LazyTaskList#getKey(int)}.
+ * <p>
+ * A query is a list of alternatives separated by {@code |}; an alternative matches a task
+ * if every one of its words does. For example {@code read book | return} finds tasks that
+ * mention both "read" and "book", or that mention "return".
+ * <p>
+ * An index never changes once built, so several threads can read it at once;
+ * {@link #with(Map, Map)} makes a changed copy that shares everything the change leaves alone.
+ */
+class KeywordIndex {
+    private static final char OR = '|';
+    private static final Comparator<Posting> ORDER = Comparator.comparing(Posting::word)
+            .thenComparingLong(Posting::key);
+
+    private final ChunkedSortedSet<Posting> postings;
+
+    /*
+    One word of the description of the task with the given order key
+     */
+    private record Posting(String word, long key) {
+    }
+
+    private KeywordIndex(ChunkedSortedSet<Posting> postings) {
+        this.postings = postings;
+    }
+
+    /**
+     * Builds the index of every task in a list.
+     *
+     * @param tasks The tasks to index.
+     * @return The index.
+     */
+    static KeywordIndex of(LazyTaskList tasks) {
+        List<Posting> all = new ArrayList<>();
+        Map<String, String> words = new HashMap<>(); // Keeps one copy of each word
+        for (int i = 0; i < tasks.size(); i++) {
+            long key = tasks.getKey(i);
+            for (String word : distinctWords(tasks.get(i))) {
+                all.add(new Posting(words.computeIfAbsent(word, w -> w), key));
+            }
+        }
+        return new KeywordIndex(ChunkedSortedSet.of(all, ORDER));
+    }
+
+    /**
+     * Returns a copy of the index with some tasks removed and others added, leaving this index as it is.
+     *
+     * @param removed The tasks to remove, by order key.
+     * @param added   The tasks to add, by order key.
+     * @return The updated copy.
+     */
+    KeywordIndex with(Map<Long, Task> removed, Map<Long, Task> added) {
+        return new KeywordIndex(postings.with(postingsOf(removed), postingsOf(added)));
+    }
+
+    private static List<Posting> postingsOf(Map<Long, Task> tasks) {
+        List<Posting> result = new ArrayList<>();
+        tasks.forEach((key, task) -> distinctWords(task).forEach(word -> result.add(new Posting(word, key))));
+        return result;
+    }
+
+    private static Set<String> distinctWords(Task task) {
+        return new LinkedHashSet<>(tokenize(task.getDescription()));
+    }
+
+    /**
+     * Returns the tasks matching a query, in no particular order.
+     *
+     * @param query Alternatives separated by {@code |}, each a list of word prefixes.
+     * @return The order keys of the matching tasks, or null if the query has no words (which matches every task).
+     */
+    Set<Long> find(String query) {
+        Set<Long> result = null;
+        int start = 0;
+        while (start <= query.length()) {
+            int end = query.indexOf(OR, start);
+            end = end < 0 ? query.length() : end;
+            List<String> words = tokenize(query.substring(start, end));
+            if (!words.isEmpty()) {
+                Set<Long> matches = findAll(words);
+                if (result == null) {
+                    result = matches;
+                } else {
+                    result.addAll(matches);
+                }
+            }
+            start = end + 1;
+        }
+        return result;
+    }
+
+    /*
+    Intersects the matches of each word, starting from the rarest one so the work stays
+    proportional to the smallest candidate set.
+     */
+    private Set<Long> findAll(List<String> words) {
+        List<Set<Long>> candidates = new ArrayList<>();
+        for (String word : words) {
+            candidates.add(findPrefix(word));
+        }
+        candidates.sort((a, b) -> Integer.compare(a.size(), b.size()));
+
+        Set<Long> result = candidates.get(0);
+        for (int i = 1; i < candidates.size() && !result.isEmpty(); i++) {
+            result.retainAll(candidates.get(i));
+        }
+        return result;
+    }
+
+    private Set<Long> findPrefix(String prefix) {
+        Set<Long> matches = new HashSet<>();
+        postings.forEachFrom(new Posting(prefix, Long.MIN_VALUE), posting -> {
+            boolean isMatch = posting.word().startsWith(prefix);
+            if (isMatch) {
+                matches.add(posting.key());
+            }
+            return isMatch;
+        });
+        return matches;
+    }
+
+    /*
+    Splits text into lower-cased words made of letters and digits.
+     */
+    private static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                words.add(text.substring(start, i).toLowerCase());
+                start = -1;
+            }
+        }
+        return words;
+    }
+}
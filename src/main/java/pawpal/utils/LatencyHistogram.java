@@ -0,0 +1,118 @@
+package pawpal.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts durations in a fixed set of buckets, so recording never allocates or locks.
+ * Each power of two is split into four buckets, which keeps every reported percentile
+ * within 25% of the true value from nanoseconds up to about half an hour; longer durations
+ * land in the last bucket. Recording and reading can happen on any threads at once.
+ */
+public final class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records one duration.
+     *
+     * @param nanos The duration in nanoseconds; negative durations count as 0.
+     */
+    public void record(long nanos) {
+        long duration = Math.max(nanos, 0);
+        buckets.incrementAndGet(bucketOf(duration));
+        count.increment();
+        totalNanos.add(duration);
+        if (duration > maxNanos.get()) {
+            maxNanos.accumulateAndGet(duration, Math::max);
+        }
+    }
+
+    /**
+     * Returns the number of durations recorded.
+     *
+     * @return The count.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Returns the sum of the durations recorded.
+     *
+     * @return The total in nanoseconds.
+     */
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    /**
+     * Returns the longest duration recorded.
+     *
+     * @return The maximum in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    /**
+     * Returns an upper bound for the given percentile: the end of the bucket it falls in, capped at the maximum.
+     * Durations recorded while this runs may or may not be counted.
+     *
+     * @param fraction The percentile as a fraction, e.g. 0.99.
+     * @return The duration in nanoseconds, or 0 if nothing was recorded.
+     */
+    public long getPercentileNanos(double fraction) {
+        long[] counts = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(lowerBoundOf(i + 1) - 1, getMaxNanos());
+            }
+        }
+        return getMaxNanos();
+    }
+
+    /*
+    Durations below SUB_BUCKETS get a bucket each; above that, the exponent picks a group of SUB_BUCKETS buckets
+    and the bits right after the leading one pick the bucket within it
+     */
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return ((exponent - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) | subBucket;
+    }
+
+    static long lowerBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = (bucket >>> SUB_BUCKET_BITS) + SUB_BUCKET_BITS - 1;
+        long leadingBits = SUB_BUCKETS | (bucket & (SUB_BUCKETS - 1));
+        return leadingBits << (exponent - SUB_BUCKET_BITS);
+    }
+}
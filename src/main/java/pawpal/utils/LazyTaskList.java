@@ -0,0 +1,332 @@
+package pawpal.utils;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import pawpal.tasks.Task;
+import pawpal.tasks.TaskSource;
+
+/**
+ * Task list whose loaded tasks stay in their file until first read, and whose copies share storage.
+ * Each position holds either a task added since loading or the index of a record in
+ * the {@link TaskSource}; {@link #get(int)} decodes a record once and keeps the result.
+ * Building the list is therefore independent of how expensive the tasks are to decode.
+ * <p>
+ * Positions are kept in chunks of at most {@value #CHUNK_SIZE}. A copy made by {@link #copy()} shares
+ * every chunk with the original and copies a chunk only when it first changes it, so copying the list and
+ * then changing a few tasks costs time proportional to the number of chunks, not the number of tasks.
+ * Once copied, a list must not be changed again, since its chunks may now belong to the copy as well.
+ * Copies also share the decoded records, so a record is decoded once however many versions of the list
+ * read it. Reading is safe from several threads at once: if two threads decode the same record,
+ * both get the task that was kept first.
+ * <p>
+ * Every position also has an order key that only grows from the first position to the last, so that
+ * {@link #indexOfKey(long)} finds a position by binary search. A position keeps its key when its task
+ * is replaced and when other positions are removed; tasks are only ever appended, under a new largest key.
+ */
+class LazyTaskList extends AbstractList<Task> implements RandomAccess {
+    private static final int NOT_IN_SOURCE = -1;
+    private static final int CHUNK_SIZE = 512;
+
+    private final TaskSource source;
+    private final AtomicReferenceArray<Task> decoded;
+    private Object owner = new Object(); // Chunks made for this list, which it may change in place
+    private Chunk[] chunks;
+    private int[] ends; // The number of positions in each chunk and those before it
+    private int chunkCount;
+    private long nextKey;
+
+    /**
+     * Constructs a list holding every task of the given source, none of them decoded yet.
+     *
+     * @param source The loaded task file.
+     */
+    LazyTaskList(TaskSource source) {
+        this.source = source;
+        this.decoded = new AtomicReferenceArray<>(source.size());
+        int size = source.size();
+        this.chunks = new Chunk[size / CHUNK_SIZE + 1];
+        this.ends = new int[chunks.length];
+        for (int start = 0; start < size; start += CHUNK_SIZE) {
+            Chunk chunk = new Chunk(owner);
+            chunk.count = Math.min(CHUNK_SIZE, size - start);
+            for (int i = 0; i < chunk.count; i++) {
+                chunk.records[i] = start + i;
+                chunk.keys[i] = start + i;
+            }
+            chunks[chunkCount] = chunk;
+            ends[chunkCount++] = start + chunk.count;
+        }
+        this.nextKey = size;
+    }
+
+    /**
+     * Constructs a list holding the given tasks.
+     *
+     * @param tasks The tasks, which are not copied.
+     */
+    LazyTaskList(List<Task> tasks) {
+        this.source = null;
+        this.decoded = new AtomicReferenceArray<>(0);
+        this.chunks = new Chunk[tasks.size() / CHUNK_SIZE + 1];
+        this.ends = new int[chunks.length];
+        addAll(tasks);
+    }
+
+    private LazyTaskList(LazyTaskList other) {
+        this.source = other.source;
+        this.decoded = other.decoded;
+        this.chunks = Arrays.copyOf(other.chunks, other.chunkCount + 1);
+        this.ends = Arrays.copyOf(other.ends, chunks.length);
+        this.chunkCount = other.chunkCount;
+        this.nextKey = other.nextKey;
+    }
+
+    /**
+     * Returns a copy of the list that can be changed without affecting this one.
+     * Only the directory of chunks is copied; no record is decoded.
+     *
+     * @return The copy.
+     */
+    LazyTaskList copy() {
+        owner = new Object(); // This list's chunks are shared from now on
+        return new LazyTaskList(this);
+    }
+
+    @Override
+    public Task get(int index) {
+        Objects.checkIndex(index, size());
+        int c = chunkAt(index);
+        Chunk chunk = chunks[c];
+        int offset = index - start(c);
+        Task task = chunk.tasks[offset];
+        if (task != null) {
+            return task;
+        }
+        int record = chunk.records[offset];
+        task = decoded.get(record);
+        if (task == null) {
+            Task decodedTask = source.get(record);
+            task = decoded.compareAndExchange(record, null, decodedTask);
+            if (task == null) {
+                task = decodedTask;
+            }
+        }
+        return task;
+    }
+
+    /**
+     * Returns the stable ID of the task at the given position, decoding nothing that is not decoded yet.
+     *
+     * @param index The 0-based position of the task.
+     * @return The ID, or 0 if none has been assigned.
+     */
+    int getId(int index) {
+        Objects.checkIndex(index, size());
+        int c = chunkAt(index);
+        Chunk chunk = chunks[c];
+        int offset = index - start(c);
+        Task task = chunk.tasks[offset] != null ? chunk.tasks[offset] : decoded.get(chunk.records[offset]);
+        return task != null ? task.getId() : source.getId(chunk.records[offset]);
+    }
+
+    /**
+     * Returns the order key of the given position.
+     *
+     * @param index The 0-based position.
+     * @return The key, which is larger than the key of every earlier position.
+     */
+    long getKey(int index) {
+        Objects.checkIndex(index, size());
+        int c = chunkAt(index);
+        return chunks[c].keys[index - start(c)];
+    }
+
+    /**
+     * Finds the position with the given order key.
+     *
+     * @param key An order key, e.g. from {@link #getKey(int)}.
+     * @return The 0-based position, or -1 if no position of this list has that key.
+     */
+    int indexOfKey(long key) {
+        int low = 0;
+        int high = chunkCount;
+        while (low < high) { // Finds the first chunk whose last key is not below the key
+            int mid = (low + high) >>> 1;
+            Chunk chunk = chunks[mid];
+            if (chunk.keys[chunk.count - 1] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        if (low == chunkCount) {
+            return -1;
+        }
+        int offset = Arrays.binarySearch(chunks[low].keys, 0, chunks[low].count, key);
+        return offset < 0 ? -1 : start(low) + offset;
+    }
+
+    @Override
+    public Task set(int index, Task task) {
+        Task old = get(index);
+        int c = chunkAt(index);
+        writable(c).tasks[index - start(c)] = task;
+        return old;
+    }
+
+    /**
+     * Inserts a task. Only appending is supported, since every other position keeps its order key.
+     *
+     * @param index The size of the list.
+     * @param task  The task to append.
+     * @throws UnsupportedOperationException If the index is not the size of the list.
+     */
+    @Override
+    public void add(int index, Task task) {
+        if (index != size()) {
+            throw new UnsupportedOperationException("Tasks can only be appended");
+        }
+        if (chunkCount == 0 || chunks[chunkCount - 1].count == CHUNK_SIZE) {
+            if (chunkCount == chunks.length) {
+                chunks = Arrays.copyOf(chunks, chunkCount * 2);
+                ends = Arrays.copyOf(ends, chunks.length);
+            }
+            chunks[chunkCount] = new Chunk(owner);
+            ends[chunkCount] = size();
+            chunkCount++;
+        }
+        Chunk chunk = writable(chunkCount - 1);
+        chunk.tasks[chunk.count] = task;
+        chunk.records[chunk.count] = NOT_IN_SOURCE;
+        chunk.keys[chunk.count] = nextKey++;
+        chunk.count++;
+        ends[chunkCount - 1]++;
+        modCount++;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task old = get(index);
+        BitSet position = new BitSet(index + 1);
+        position.set(index);
+        removeAll(position);
+        return old;
+    }
+
+    /**
+     * Removes the tasks at the given positions, without decoding any record.
+     * Only the chunks holding a removed position are copied.
+     *
+     * @param positions The 0-based positions to remove.
+     */
+    void removeAll(BitSet positions) {
+        int first = positions.nextSetBit(0);
+        if (first < 0 || first >= size()) {
+            return;
+        }
+        int kept = chunkAt(first);
+        int removed = 0;
+        int end = start(kept);
+        for (int c = kept; c < chunkCount; c++) {
+            int start = end; // The ends of earlier chunks may already be updated
+            end = ends[c];
+            int next = positions.nextSetBit(start);
+            Chunk chunk = chunks[c];
+            if (next >= 0 && next < end) {
+                chunk = writable(c);
+                int write = next - start;
+                for (int read = write + 1; read < chunk.count; read++) {
+                    if (!positions.get(start + read)) {
+                        chunk.tasks[write] = chunk.tasks[read];
+                        chunk.records[write] = chunk.records[read];
+                        chunk.keys[write] = chunk.keys[read];
+                        write++;
+                    }
+                }
+                Arrays.fill(chunk.tasks, write, chunk.count, null);
+                removed += chunk.count - write;
+                chunk.count = write;
+            }
+            if (kept > 0 && chunk.count < CHUNK_SIZE / 4 && chunks[kept - 1].count + chunk.count <= CHUNK_SIZE) {
+                Chunk previous = writable(kept - 1); // Joins small chunks so the directory stays short
+                System.arraycopy(chunk.tasks, 0, previous.tasks, previous.count, chunk.count);
+                System.arraycopy(chunk.records, 0, previous.records, previous.count, chunk.count);
+                System.arraycopy(chunk.keys, 0, previous.keys, previous.count, chunk.count);
+                previous.count += chunk.count;
+                ends[kept - 1] = end - removed;
+            } else if (chunk.count > 0) {
+                chunks[kept] = chunk;
+                ends[kept++] = end - removed;
+            }
+        }
+        Arrays.fill(chunks, kept, chunkCount, null);
+        chunkCount = kept;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return chunkCount == 0 ? 0 : ends[chunkCount - 1];
+    }
+
+    /*
+    Finds the chunk holding a position by binary search over the chunk ends
+     */
+    private int chunkAt(int index) {
+        int low = 0;
+        int high = chunkCount - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] <= index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int start(int chunk) {
+        return chunk == 0 ? 0 : ends[chunk - 1];
+    }
+
+    /*
+    Returns the chunk at the given index, first replacing it with a private copy if it is shared
+     */
+    private Chunk writable(int c) {
+        if (chunks[c].owner != owner) {
+            chunks[c] = chunks[c].copy(owner);
+        }
+        return chunks[c];
+    }
+
+    private static final class Chunk {
+        private final Object owner;
+        private final Task[] tasks;
+        private final int[] records;
+        private final long[] keys;
+        private int count;
+
+        Chunk(Object owner) {
+            this(owner, new Task[CHUNK_SIZE], new int[CHUNK_SIZE], new long[CHUNK_SIZE], 0);
+        }
+
+        private Chunk(Object owner, Task[] tasks, int[] records, long[] keys, int count) {
+            this.owner = owner;
+            this.tasks = tasks;
+            this.records = records;
+            this.keys = keys;
+            this.count = count;
+        }
+
+        Chunk copy(Object newOwner) {
+            return new Chunk(newOwner, tasks.clone(), records.clone(), keys.clone(), count);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package pawpal.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide latency and I/O counters for commands and storage, reported by the {@code stats} command
+ * and optionally dumped to a file every so often.
+ * <p>
+ * Recording is lock-free and allocation-free. Metrics are on unless PawPal is started with
+ * {@code -Dpawpal.metrics=false}; since the switch is a constant, the JIT then removes the timing calls altogether.
+ * With {@code -Dpawpal.metricsFile=<path>}, the report is rewritten to that file every
+ * {@code pawpal.metricsInterval} seconds (60 by default).
+ */
+public final class Metrics {
+    /** Whether metrics are recorded; fixed for the lifetime of the process. */
+    public static final boolean IS_ENABLED = Boolean.parseBoolean(System.getProperty("pawpal.metrics", "true"));
+
+    private static final String FILE_PROPERTY = "pawpal.metricsFile";
+    private static final String INTERVAL_PROPERTY = "pawpal.metricsInterval";
+    private static final long DEFAULT_INTERVAL_SECONDS = 60;
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final Instant STARTED = Instant.now();
+    private static final LatencyHistogram[] COMMANDS = new LatencyHistogram[Command.values().length];
+    private static final AtomicBoolean IS_DUMPING = new AtomicBoolean();
+
+    /**
+     * The storage and search work that is timed apart from the commands that cause it.
+     */
+    public enum Stage {
+        READ_SNAPSHOT("task file reads"),
+        REPLAY_JOURNAL("journal replays"),
+        ASSIGN_IDS("ID assignment"),
+        WRITE_SNAPSHOT("task file writes"),
+        APPEND_JOURNAL("journal appends"),
+        SYNC_JOURNAL("journal syncs"),
+        SEARCH("keyword searches");
+
+        private final String label;
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder bytes = new LongAdder();
+
+        Stage(String label) {
+            this.label = label;
+        }
+    }
+
+    static {
+        for (int i = 0; i < COMMANDS.length; i++) {
+            COMMANDS[i] = new LatencyHistogram();
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * Returns the time to pass to a later {@code record} call.
+     *
+     * @return The current {@link System#nanoTime()}, or 0 when metrics are off.
+     */
+    public static long start() {
+        return IS_ENABLED ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records how long a command took since {@link #start()}.
+     *
+     * @param command The command that ran.
+     * @param start   The time returned by {@link #start()} before it ran.
+     */
+    public static void record(Command command, long start) {
+        if (IS_ENABLED) {
+            COMMANDS[command.ordinal()].record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Records how long a stage took since {@link #start()} and how many bytes it read or wrote.
+     *
+     * @param stage The stage that ran.
+     * @param start The time returned by {@link #start()} before it ran.
+     * @param bytes The bytes read or written, or 0 if the stage does no I/O.
+     */
+    public static void record(Stage stage, long start, long bytes) {
+        if (IS_ENABLED) {
+            stage.latency.record(System.nanoTime() - start);
+            stage.bytes.add(bytes);
+        }
+    }
+
+    /**
+     * Returns the histogram of a command's latencies, e.g. for tests.
+     *
+     * @param command The command.
+     * @return The histogram, which keeps counting as the command runs.
+     */
+    public static LatencyHistogram getLatency(Command command) {
+        return COMMANDS[command.ordinal()];
+    }
+
+    /**
+     * Returns a table of every command and stage that has run since the process started:
+     * how often, p50, p99 and maximum latency, and for stages the bytes moved.
+     *
+     * @return The report.
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Here's how PawPal has been purring since ").append(STARTED).append(':');
+        sb.append("\nCommands:");
+        for (Command command : Command.values()) {
+            appendRow(sb, command.name().toLowerCase(Locale.ROOT), COMMANDS[command.ordinal()], -1);
+        }
+        sb.append("\nStorage and search:");
+        for (Stage stage : Stage.values()) {
+            appendRow(sb, stage.label, stage.latency, stage.bytes.sum());
+        }
+        return sb.toString();
+    }
+
+    private static void appendRow(StringBuilder sb, String label, LatencyHistogram latency, long bytes) {
+        long count = latency.getCount();
+        if (count == 0) {
+            return;
+        }
+        sb.append(String.format(Locale.ROOT, "\n  %-17s %8d  p50 %9s  p99 %9s  max %9s", label, count,
+                formatNanos(latency.getPercentileNanos(0.50)), formatNanos(latency.getPercentileNanos(0.99)),
+                formatNanos(latency.getMaxNanos())));
+        if (bytes > 0) {
+            sb.append(String.format(Locale.ROOT, "  %.1f KB", bytes / 1024.0));
+        }
+    }
+
+    private static String formatNanos(long nanos) {
+        return String.format(Locale.ROOT, "%.3f ms", nanos / 1e6);
+    }
+
+    /**
+     * Starts rewriting the report to the file named by {@code pawpal.metricsFile}, if it is set.
+     * Later calls do nothing, so every entry point can call this.
+     */
+    public static void startDumpingIfConfigured() {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (!IS_ENABLED || file == null || !IS_DUMPING.compareAndSet(false, true)) {
+            return;
+        }
+        long intervalSeconds = Math.max(1, Long.getLong(INTERVAL_PROPERTY, DEFAULT_INTERVAL_SECONDS));
+        ScheduledExecutorService dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pawpal-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Path target = Path.of(file).toAbsolutePath();
+        dumper.scheduleWithFixedDelay(() -> dump(target), intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> dump(target)));
+    }
+
+    /*
+    Writes the report next to the target and renames it into place, so readers never see half a report
+     */
+    private static void dump(Path target) {
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try {
+            Files.createDirectories(target.getParent());
+            Files.writeString(temp, report() + System.lineSeparator() + "Uptime: "
+                    + Duration.between(STARTED, Instant.now()).toSeconds() + " s" + System.lineSeparator(),
+                    StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // The next dump tries again; metrics must never get in the way of the tasks
+        }
+    }
+}
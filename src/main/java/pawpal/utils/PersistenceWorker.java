@@ -0,0 +1,174 @@
+package pawpal.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import pawpal.tasks.Task;
+
+/**
+ * Single background thread that performs all writes for a {@link Storage} in async mode.
+ * Journal records and snapshot requests are queued by the caller and written in order;
+ * everything that arrives within one commit window is coalesced into one write, and a
+ * snapshot makes any records and older snapshots queued before it redundant.
+ */
+class PersistenceWorker implements Runnable {
+
+    /**
+     * Writes a full snapshot of the task list.
+     */
+    interface SnapshotWriter {
+        void write(List<Task> tasks, boolean isForced) throws IOException;
+    }
+
+    private record Snapshot(List<Task> tasks) {
+    }
+
+    private record Barrier(CountDownLatch latch) {
+    }
+
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Journal journal;
+    private final SnapshotWriter snapshotWriter;
+    private final long windowNanos;
+    private final Durability durability;
+    private final Thread thread;
+    private final AtomicReference<IOException> failure = new AtomicReference<>();
+    private volatile boolean isClosed;
+    private boolean isDroppingRecords;
+
+    /**
+     * Constructs and starts a worker.
+     *
+     * @param journal        The journal to append records to, or null in snapshot-only mode.
+     * @param snapshotWriter Writes snapshots of the task list.
+     * @param windowMillis   How long to gather further changes after the first one arrives.
+     * @param durability     When written data is forced to the storage device.
+     */
+    PersistenceWorker(Journal journal, SnapshotWriter snapshotWriter, long windowMillis, Durability durability) {
+        this.journal = journal;
+        this.snapshotWriter = snapshotWriter;
+        this.windowNanos = durability == Durability.COMMIT ? 0 : TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.durability = durability;
+        this.thread = new Thread(this, "pawpal-storage-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void submitRecord(String record) {
+        queue.add(record);
+    }
+
+    void submitSnapshot(List<Task> tasks) {
+        queue.add(new Snapshot(tasks));
+    }
+
+    /**
+     * Blocks until everything submitted so far has been written. Returns immediately once closed.
+     */
+    void flush() {
+        if (isClosed) {
+            return;
+        }
+        CountDownLatch latch = new CountDownLatch(1);
+        queue.add(new Barrier(latch));
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns and clears the last write failure.
+     * After a failed journal write, queued records are dropped until the next snapshot.
+     *
+     * @return The failure, or null if every write since the last call succeeded.
+     */
+    IOException takeFailure() {
+        return failure.getAndSet(null);
+    }
+
+    /**
+     * Flushes pending writes and stops the writer thread.
+     */
+    void close() {
+        flush();
+        isClosed = true;
+        thread.interrupt();
+    }
+
+    @Override
+    public void run() {
+        List<Object> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                collect(batch);
+            } catch (InterruptedException e) {
+                return;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /*
+    Waits for the first change, then keeps gathering until the window closes or a flush is requested.
+     */
+    private void collect(List<Object> batch) throws InterruptedException {
+        Object op = queue.take();
+        batch.add(op);
+        long deadline = System.nanoTime() + windowNanos;
+        while (!(op instanceof Barrier)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0 || (op = queue.poll(remaining, TimeUnit.NANOSECONDS)) == null) {
+                break;
+            }
+            batch.add(op);
+        }
+        queue.drainTo(batch);
+    }
+
+    private void write(List<Object> batch) {
+        int lastSnapshot = -1;
+        for (int i = 0; i < batch.size(); i++) {
+            if (batch.get(i) instanceof Snapshot) {
+                lastSnapshot = i;
+            }
+        }
+
+        boolean isForced = durability != Durability.NONE;
+        List<String> records = new ArrayList<>();
+        try {
+            if (lastSnapshot >= 0) {
+                snapshotWriter.write(((Snapshot) batch.get(lastSnapshot)).tasks(), isForced);
+                isDroppingRecords = false;
+            }
+            for (int i = lastSnapshot + 1; i < batch.size(); i++) {
+                if (batch.get(i) instanceof String record) {
+                    records.add(record);
+                }
+            }
+            if (journal != null && !isDroppingRecords && !records.isEmpty()) {
+                journal.append(records);
+                if (isForced) {
+                    journal.sync();
+                }
+            }
+        } catch (IOException e) {
+            isDroppingRecords = true;
+            failure.set(e);
+        }
+
+        for (Object op : batch) {
+            if (op instanceof Barrier barrier) {
+                barrier.latch().countDown();
+            }
+        }
+    }
+}
@@ -1,103 +1,277 @@
-package pawpal.utils;
-
-import java.util.List;
-
-import pawpal.tasks.Task;
-
-/**
- * Defines the printer class and its statements.
- */
-public class Printer {
-
-    // Added methods for greeting, bye, and error messages
-    public static String getGreetingMessage(String appName) {
-        return "Meow there! Welcome to " + appName + "!\nHow can I help you pounce on your tasks today?";
-    }
-
-    public static String getByeMessage() {
-        return "Farewell, human! May your naps be long and your adventures many! Meow!";
-    }
-
-    public static String getLoadingErrorMessage() {
-        return "Oops! I tripped over a yarn ball while loading tasks from file.";
-    }
-
-    public static String getSavingErrorMessage() {
-        return "Uh-oh! A sneaky cat toy got in the way while saving tasks to file.";
-    }
-
-    // Existing task-related messages
-    public static String getTaskAddedMessage(String description, int taskCount) {
-        return "Purrfect! I've added the task: " + description
-                + "\nNow you have " + taskCount + " tasks to chase.";
-    }
-
-    public static String getTaskDeletedMessage(Task task, int taskCount) {
-        return "I've swiped away the task: " + task
-                + "\nNow there are " + taskCount + " tasks remaining in your kitty checklist.";
-    }
-
-    public static String getTaskMarkedMessage(Task task) {
-        return "That task is now purr-fectly completed:\n" + task;
-    }
-
-    public static String getTaskUnmarkedMessage(Task task) {
-        return "Even the best cats need a second try. Task reset to not done:\n" + task;
-    }
-
-    public static String getTaskListString(List<Task> tasks) {
-        if (tasks.isEmpty()) {
-            return "Your task list is as empty as a food bowl before dinner!";
-        }
-        StringBuilder sb = new StringBuilder("Here are your tasks, ready for a purr-fect day:\n");
-        for (int i = 0; i < tasks.size(); i++) {
-            sb.append((i + 1)).append(". ").append(tasks.get(i)).append("\n");
-        }
-        return sb.toString().trim();
-    }
-
-    public static String getMatchingTasksMessage(List<Task> tasks) {
-        if (tasks.isEmpty()) {
-            return "No matching tasks found. Did the cat hide them?";
-        }
-        StringBuilder sb = new StringBuilder("Here are your matching tasks:\n");
-        for (int i = 0; i < tasks.size(); i++) {
-            sb.append((i + 1)).append(". ").append(tasks.get(i)).append("\n");
-        }
-        return sb.toString().trim();
-    }
-
-    public static String getInvalidTaskNumberMessage() {
-        return "Invalid task number! Did you mistake a shadow for a task?";
-    }
-
-    public static String getInvalidCommandMessage() {
-        return "Hiss! I don't understand that command. Please try a valid one.";
-    }
-
-    public static String printBye() {
-        return "Bye! I'll be purring until we meet again.";
-    }
-
-    public static String getTodoUsageMessage() {
-        return """
-                To create a ToDo, use the format:
-                  todo <description>
-                Don't leave out the purr-scription!""";
-    }
-
-    public static String getDeadlineUsageMessage() {
-        return """
-                For a Deadline, please use the format:
-                  deadline <description> /by <deadline info>
-                Don't let your tasks slip through your paws!""";
-    }
-
-    public static String getEventUsageMessage() {
-        return """
-                For an Event, please use the format:
-                  event <description> /from <start> /to <end>
-                Time to mark your calendars and chase the fun!""";
-    }
-
-}
+package pawpal.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import pawpal.tasks.Task;
+
+/**
+ * Defines the printer class and its statements.
+ */
+public class Printer {
+
+    // Added methods for greeting, bye, and error messages
+    public static String getGreetingMessage(String appName) {
+        return "Meow there! Welcome to " + appName + "!\nHow can I help you pounce on your tasks today?";
+    }
+
+    public static String getByeMessage() {
+        return "Farewell, human! May your naps be long and your adventures many! Meow!";
+    }
+
+    public static String getLoadingErrorMessage() {
+        return "Oops! I tripped over a yarn ball while loading tasks from file.";
+    }
+
+    public static String getSkippedLinesMessage(String workspace, int skippedLineCount) {
+        return "Some of the " + workspace + " tasks were chewed up! I skipped " + skippedLineCount
+                + " damaged line(s) of the task file.";
+    }
+
+    public static String getIncompleteSaveDiscardedMessage(String workspace) {
+        return "A save of the " + workspace + " tasks was interrupted last time, so I picked up from the one before.";
+    }
+
+    public static String getCommandFailedMessage() {
+        return "Oops! Something got my whiskers in a twist while doing that. Please try again.";
+    }
+
+    public static String getServerBusyMessage() {
+        return "Too many paws on the keyboard! Please try again in a moment.";
+    }
+
+    public static String getWorkspaceSwitchedMessage(String name, int taskCount) {
+        return "Pounced over to the " + name + " workspace! It holds " + taskCount + " tasks.";
+    }
+
+    public static String getWorkspaceLoadingErrorMessage(String name) {
+        return "Oops! I tripped over a yarn ball while loading the " + name + " workspace, so I stayed put.";
+    }
+
+    public static String getCurrentWorkspaceMessage(String name) {
+        return "You're curled up in the " + name + " workspace. Type use <name> to switch.";
+    }
+
+    public static String getWorkspaceUsageMessage() {
+        return """
+                To switch task lists, use:
+                  use <name>
+                Names are up to 64 letters, digits, - and _, like a tag on a cat's collar.""";
+    }
+
+    public static String getMetricsDisabledMessage() {
+        return "My stopwatch is switched off. Start PawPal without -Dpawpal.metrics=false to see stats.";
+    }
+
+    public static String getWorkspaceUnavailableMessage() {
+        return "This task list can't switch workspaces on its own. Type use <name> to PawPal instead.";
+    }
+
+    public static String getSavingErrorMessage() {
+        return "Uh-oh! A sneaky cat toy got in the way while saving tasks to file.";
+    }
+
+    // Existing task-related messages
+    public static String getTaskAddedMessage(String description, int taskCount, int id) {
+        return "Purrfect! I've added the task: " + description
+                + "\nNow you have " + taskCount + " tasks to chase."
+                + "\nIts ID is #" + id + ", which stays put even when the list is sorted.";
+    }
+
+    public static String getTaskDeletedMessage(Task task, int taskCount) {
+        return "I've swiped away the task: " + task
+                + "\nNow there are " + taskCount + " tasks remaining in your kitty checklist.";
+    }
+
+    public static String getTaskMarkedMessage(Task task) {
+        return "That task is now purr-fectly completed:\n" + task;
+    }
+
+    public static String getTaskUnmarkedMessage(Task task) {
+        return "Even the best cats need a second try. Task reset to not done:\n" + task;
+    }
+
+    public static String getTaskListString(List<Task> tasks) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            appendTaskList(tasks, 0, tasks.size(), sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns one page of the task list, with a footer pointing to the next page if there is one.
+     * Only the tasks on the page are rendered, so the cost does not depend on the length of the list.
+     *
+     * @param tasks    The whole task list.
+     * @param page     The 1-based page number.
+     * @param pageSize The number of tasks per page.
+     * @return The page, or a message saying that the page does not exist.
+     */
+    public static String getTaskListPage(List<Task> tasks, int page, int pageSize) {
+        StringBuilder sb = new StringBuilder();
+        try {
+            appendTaskListPage(tasks, page, pageSize, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes one page of the task list to the given output, like {@link #getTaskListPage(List, int, int)}.
+     *
+     * @param tasks    The whole task list.
+     * @param page     The 1-based page number.
+     * @param pageSize The number of tasks per page.
+     * @param out      Where the page is written.
+     * @throws IOException If the output cannot be written.
+     */
+    public static void appendTaskListPage(List<Task> tasks, int page, int pageSize, Appendable out)
+            throws IOException {
+        int pageCount = Math.max(1, (int) ((tasks.size() + (long) pageSize - 1) / pageSize));
+        if (page > pageCount) {
+            out.append(pageCount == 1 ? "There is only 1 page" : "There are only " + pageCount + " pages")
+                    .append(" to paw through! Try a smaller page number.");
+            return;
+        }
+        int fromIndex = (int) Math.min((long) (page - 1) * pageSize, tasks.size());
+        int toIndex = (int) Math.min((long) fromIndex + pageSize, tasks.size());
+        appendTaskList(tasks, fromIndex, toIndex, out);
+        if (pageCount > 1) {
+            out.append("\nPage ").append(String.valueOf(page)).append(" of ").append(String.valueOf(pageCount));
+            out.append(page < pageCount ? ". Type list " + (page + 1) + " for more." : ".");
+        }
+    }
+
+    /**
+     * Writes the numbered tasks in the given range to the output, one line per task, without
+     * building the list in memory first.
+     *
+     * @param tasks     The whole task list, so that tasks are shown with their list numbers.
+     * @param fromIndex The 0-based position of the first task to write.
+     * @param toIndex   The 0-based position after the last task to write.
+     * @param out       Where the tasks are written.
+     * @throws IOException If the output cannot be written.
+     */
+    public static void appendTaskList(List<Task> tasks, int fromIndex, int toIndex, Appendable out)
+            throws IOException {
+        if (tasks.isEmpty()) {
+            out.append("Your task list is as empty as a food bowl before dinner!");
+            return;
+        }
+        out.append("Here are your tasks, ready for a purr-fect day:");
+        for (int i = fromIndex; i < toIndex; i++) {
+            out.append('\n').append(String.valueOf(i + 1)).append(". ").append(tasks.get(i).toString());
+        }
+    }
+
+    public static String getListUsageMessage() {
+        return """
+                To see your tasks, use:
+                  list [page] [page size]
+                  list all
+                Long lists come in pages, like a good book for a lazy afternoon.""";
+    }
+
+    public static String getTasksDeletedMessage(int deletedCount, int taskCount) {
+        return "I've swiped away " + deletedCount + " tasks in one big paw sweep!"
+                + "\nNow there are " + taskCount + " tasks remaining in your kitty checklist.";
+    }
+
+    public static String getTasksMarkedMessage(int markedCount) {
+        return "Purr-fect! " + markedCount + " tasks are now completed.";
+    }
+
+    public static String getTasksUnmarkedMessage(int unmarkedCount) {
+        return "Even the best cats need a second try. " + unmarkedCount + " tasks reset to not done.";
+    }
+
+    public static String getNoTasksSelectedMessage() {
+        return "No tasks matched, so I left everything where it was.";
+    }
+
+    public static String getMatchingTasksMessage(List<Task> tasks, int[] matchPositions) {
+        if (matchPositions.length == 0) {
+            return "No matching tasks found. Did the cat hide them?";
+        }
+        return getNumberedTasksString("Here are your matching tasks:\n", tasks, matchPositions);
+    }
+
+    public static String getDatedTasksMessage(List<Task> tasks, int[] matchPositions) {
+        if (matchPositions.length == 0) {
+            return "Nothing scheduled then. Purr-fect time for a nap!";
+        }
+        return getNumberedTasksString("Here are your tasks, earliest first:\n", tasks, matchPositions);
+    }
+
+    private static String getNumberedTasksString(String header, List<Task> tasks, int[] positions) {
+        StringBuilder sb = new StringBuilder(header);
+        for (int position : positions) {
+            sb.append((position + 1)).append(". ").append(tasks.get(position)).append("\n");
+        }
+        return sb.toString().trim();
+    }
+
+    public static String getInvalidTaskNumberMessage() {
+        return "Invalid task number! Did you mistake a shadow for a task?";
+    }
+
+    public static String getInvalidCommandMessage() {
+        return "Hiss! I don't understand that command. Please try a valid one.";
+    }
+
+    public static String printBye() {
+        return "Bye! I'll be purring until we meet again.";
+    }
+
+    public static String getTodoUsageMessage() {
+        return """
+                To create a ToDo, use the format:
+                  todo <description>
+                Don't leave out the purr-scription!""";
+    }
+
+    public static String getDeadlineUsageMessage() {
+        return """
+                For a Deadline, please use the format:
+                  deadline <description> /by <deadline info>
+                Don't let your tasks slip through your paws!""";
+    }
+
+    public static String getEventUsageMessage() {
+        return """
+                For an Event, please use the format:
+                  event <description> /from <start> /to <end>
+                Time to mark your calendars and chase the fun!""";
+    }
+
+    public static String getEventOrderMessage() {
+        return """
+                An Event can't end before it starts!
+                Please check the /from and /to dates and try again.""";
+    }
+
+    public static String getSelectionUsageMessage() {
+        return """
+                To pick several tasks at once, follow mark, unmark or delete with:
+                  task numbers and ranges, e.g. 3,7,9-20
+                  done, for every completed task
+                  find <keywords>, for every task find would list
+                One swipe of the paw for the whole lot!""";
+    }
+
+    public static String getDateQueryUsageMessage() {
+        return """
+                To look up tasks by date, use one of:
+                  due before <date>
+                  between <date> /and <date>
+                  upcoming [count]
+                Dates look like 2/12/2019 1800, 2019-12-02 18:00 or next mon 1800,
+                or just 2/12/2019 or tomorrow for the whole day.""";
+    }
+
+}
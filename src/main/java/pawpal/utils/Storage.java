@@ -1,188 +1,506 @@
-package pawpal.utils;
-
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Optional;
-import java.util.Random;
-
-import pawpal.tasks.Deadline;
-import pawpal.tasks.Event;
-import pawpal.tasks.Task;
-import pawpal.tasks.ToDo;
-
-/**
- * Handles loading and saving tasks from and to a file.
- */
-public class Storage {
-
-    private final String taskFilePath;
-
-    /**
-     * Constructs a new Storage instance.
-     *
-     * @param filePath The path to the file where tasks are stored.
-     */
-    public Storage(String filePath) {
-        this.taskFilePath = filePath;
-    }
-
-    /**
-     * Loads tasks from the file and returns them as a list.
-     *
-     * @return A list of tasks loaded from the file.
-     * @throws IOException If an error occurs while reading the file.
-     */
-    public List<Task> loadTasks() throws IOException {
-        List<Task> tasks = new ArrayList<>();
-        File file = new File(taskFilePath);
-
-        if (!file.exists()) {
-            return tasks; // Return an empty list if the file doesn't exist
-        }
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                Optional<Task> maybeTask = parseTask(line);
-                maybeTask.ifPresent(tasks::add);
-            }
-        }
-        return tasks;
-    }
-
-    /**
-     * Saves the current list of tasks to the file.
-     *
-     * @param tasks The list of tasks to be saved.
-     * @throws IOException If an error occurs while writing to the file.
-     */
-    public void saveTasks(List<Task> tasks) throws IOException {
-        File file = new File(taskFilePath);
-        file.getParentFile().mkdirs(); // Ensure the directory exists
-
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-            for (Task task : tasks) {
-                writer.write(task.toString());
-                writer.newLine();
-            }
-        }
-    }
-
-    /**
-     * Parses a line from the task file and creates the corresponding task object.
-     *
-     * @param line The line representing a task in the saved file.
-     * @return The parsed task object, or null if the line is malformed.
-     */
-    private Optional<Task> parseTask(String line) {
-        // Guard clause: blank line or null
-        if (line == null || line.isBlank()) {
-            return Optional.empty();
-        }
-
-        // Validate length to avoid IndexOutOfBounds
-        if (line.length() < 7) {
-            System.out.println("Skipping malformed (too short) task line: " + line);
-            return Optional.empty();
-        }
-
-        String taskType = line.substring(1, 2);
-        boolean isDone = (line.charAt(4) == 'X');
-        String details = line.substring(7).trim();
-
-        // 1) Get Optional<Task> from helper
-        Optional<Task> maybeTask = createTaskFromType(taskType, details);
-
-        // 2) If empty, skip
-        if (maybeTask.isEmpty()) {
-            System.out.println("Skipping malformed (invalid format) task line: " + line);
-            return Optional.empty();
-        }
-
-        // 3) Extract the Task and mark if done
-        Task task = maybeTask.get();
-        if (isDone) {
-            task.markAsDone();
-        }
-
-        return Optional.of(task);
-    }
-
-    private Optional<Task> createTaskFromType(String taskType, String details) {
-        switch (taskType) {
-        case "T":
-            return parseToDo(details);
-        case "D":
-            return parseDeadline(details);
-        case "E":
-            return parseEvent(details);
-        default:
-            return Optional.empty();
-        }
-    }
-
-    private Optional<Task> parseToDo(String details) {
-        // If you want to guard for empty details, do so here
-        return Optional.of(new ToDo(details));
-    }
-
-    private Optional<Task> parseDeadline(String details) {
-        // e.g., "Some desc (by: 12/12/2024 1800)"
-        String[] parts = details.split("\\(by: ", 2);
-        if (parts.length < 2) {
-            return Optional.empty();
-        }
-        String desc = parts[0].trim();
-        String deadlineStr = parts[1].replace(")", "").trim();
-        return Optional.of(new Deadline(desc, deadlineStr));
-    }
-
-    private Optional<Task> parseEvent(String details) {
-        // e.g. "Meeting from: 12/12/2024 1800 to: 12/12/2024 2000"
-        String[] parts = details.split("from: | to: ");
-        if (parts.length < 3) {
-            return Optional.empty();
-        }
-        return Optional.of(new Event(parts[0].trim(), parts[1].trim(), parts[2].trim()));
-    }
-
-
-
-    /**
-     * Retrieves a random motivational quote from a file.
-     *
-     * @param cheerFilePath The path to the cheer quotes file.
-     * @return A randomly selected quote from the file.
-     * @throws IOException If an error occurs while reading the file.
-     */
-    public String getRandomQuote(String cheerFilePath) throws IOException {
-        File file = new File(cheerFilePath);
-
-        if (!file.exists()) {
-            return "File not found!";
-        }
-
-        List<String> quotes = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    quotes.add(line.trim());
-                }
-            }
-        }
-
-        if (quotes.isEmpty()) {
-            return "No cheers found!";
-        }
-
-        Random random = new Random();
-        return quotes.get(random.nextInt(quotes.size()));
-    }
-}
+package pawpal.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import pawpal.tasks.BinaryTaskFile;
+import pawpal.tasks.Deadline;
+import pawpal.tasks.Event;
+import pawpal.tasks.Task;
+import pawpal.tasks.TaskCodec;
+import pawpal.tasks.TaskSource;
+import pawpal.tasks.TextTaskFile;
+import pawpal.tasks.ToDo;
+
+/**
+ * Handles loading and saving tasks from and to a file.
+ */
+public class Storage {
+
+    /** Number of journal records after which {@link #persist(List)} folds the journal into a snapshot. */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String BINARY_SUFFIX = ".bin";
+
+    private final String taskFilePath;
+    private final Journal journal;
+    private final int compactionThreshold;
+    private int recordsSinceSnapshot;
+    private boolean isJournalStale;
+    private int skippedLineCount;
+    private boolean isIncompleteSaveDiscarded;
+    private PersistenceWorker worker;
+    private Thread flushOnExit;
+    private CheerQuotes cheerQuotes;
+
+    /**
+     * Constructs a new Storage instance that rewrites the whole task file on every save.
+     * Tasks are saved in the compact binary format if the path ends with {@code .bin},
+     * and as text otherwise; either format is recognised when loading.
+     *
+     * @param filePath The path to the file where tasks are stored.
+     */
+    public Storage(String filePath) {
+        this(filePath, false);
+    }
+
+    /**
+     * Constructs a new Storage instance, optionally in journal mode.
+     * In journal mode, task list mutations are appended to {@code <filePath>.journal}
+     * and only periodically compacted into the task file.
+     *
+     * @param filePath    The path to the file where tasks are stored.
+     * @param isJournaled Whether mutations are recorded in an append-only journal.
+     */
+    public Storage(String filePath, boolean isJournaled) {
+        this(filePath, isJournaled, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Constructs a new Storage instance with a custom journal compaction threshold.
+     *
+     * @param filePath            The path to the file where tasks are stored.
+     * @param isJournaled         Whether mutations are recorded in an append-only journal.
+     * @param compactionThreshold The number of journal records that triggers a compaction.
+     */
+    public Storage(String filePath, boolean isJournaled, int compactionThreshold) {
+        assert compactionThreshold > 0 : "Compaction threshold should be positive";
+        this.taskFilePath = filePath;
+        this.journal = isJournaled ? new Journal(filePath + ".journal") : null;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Moves all writes onto a single background thread, so saving never blocks the caller.
+     * Changes arriving within {@code windowMillis} of each other are coalesced into one write,
+     * and {@link #flush()} waits until everything submitted so far is on disk.
+     * Must be called before the storage is used to record or save tasks, but may follow {@link #loadTasks()}.
+     * Until the storage is closed, a shutdown hook also flushes it when the application exits.
+     *
+     * @param windowMillis The group-commit window in milliseconds; ignored for {@link Durability#COMMIT}.
+     * @param durability   When written data is forced to the storage device.
+     */
+    public void startAsyncWriter(long windowMillis, Durability durability) {
+        assert worker == null : "Async writer already started";
+        worker = new PersistenceWorker(journal, this::writeSnapshot, windowMillis, durability);
+        flushOnExit = new Thread(worker::flush);
+        Runtime.getRuntime().addShutdownHook(flushOnExit);
+    }
+
+    /**
+     * Returns whether this storage records mutations in a journal.
+     *
+     * @return True if journal mode is enabled.
+     */
+    public boolean isJournaled() {
+        return journal != null;
+    }
+
+    /**
+     * Loads tasks from the file and returns them as a list.
+     * In journal mode, the journal is replayed on top of the loaded snapshot.
+     * A temporary file left behind by an interrupted save is discarded first.
+     * Tasks in the returned list are only decoded from the file when they are first read,
+     * so loading does not get slower with the number of tasks that are never looked at.
+     *
+     * @return A mutable list of the tasks loaded from the file.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    public List<Task> loadTasks() throws IOException {
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        skippedLineCount = 0;
+        isIncompleteSaveDiscarded = discardIncompleteSnapshot();
+        List<Task> tasks = loadSnapshot();
+        if (journal != null) {
+            long start = Metrics.start();
+            boolean isIntact = journal.replay(tasks);
+            Metrics.record(Metrics.Stage.REPLAY_JOURNAL, start, journal.length());
+            recordsSinceSnapshot = journal.getRecordCount();
+            if (!isIntact) {
+                skippedLineCount++;
+                saveTasks(tasks); // Drop the damaged tail so new records are not appended after it
+            }
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            Path file = Path.of(taskFilePath);
+            event.operation = StorageEvent.LOAD;
+            event.path = taskFilePath;
+            event.taskCount = tasks.size();
+            event.bytes = (Files.exists(file) ? Files.size(file) : 0) + (journal == null ? 0 : journal.length());
+            event.commit();
+        }
+        return tasks;
+    }
+
+    private List<Task> loadSnapshot() throws IOException {
+        Path file = Path.of(taskFilePath);
+
+        if (!Files.exists(file)) {
+            return new ArrayList<>(); // Return an empty list if the file doesn't exist
+        }
+
+        long start = Metrics.start();
+        TaskSource source;
+        long size;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            size = channel.size();
+            if (BinaryTaskFile.isBinary(channel)) {
+                source = BinaryTaskFile.open(file);
+            } else {
+                TextTaskFile textFile = TextTaskFile.read(file, line -> parseTask(line).orElse(null));
+                skippedLineCount += textFile.getSkippedLineCount();
+                source = textFile;
+            }
+        }
+        Metrics.record(Metrics.Stage.READ_SNAPSHOT, start, size);
+        return new LazyTaskList(source);
+    }
+
+    /**
+     * Returns how many damaged lines the last {@link #loadTasks()} left out: malformed lines of the task file,
+     * plus one if the journal ended in a damaged record, which is dropped along with anything after it.
+     *
+     * @return The number of lines that could not be loaded.
+     */
+    public int getSkippedLineCount() {
+        return skippedLineCount;
+    }
+
+    /**
+     * Returns whether the last {@link #loadTasks()} found and discarded a save that was interrupted.
+     * The tasks are then loaded from the last complete save and the journal.
+     *
+     * @return True if an incomplete save was discarded.
+     */
+    public boolean isIncompleteSaveDiscarded() {
+        return isIncompleteSaveDiscarded;
+    }
+
+    /**
+     * Saves the current list of tasks to the file.
+     * In journal mode, this also compacts the journal, since the snapshot now covers all its records.
+     * With the async writer running, the save is only queued and this method returns immediately.
+     *
+     * @param tasks The list of tasks to be saved.
+     * @throws IOException If an error occurs while writing to the file.
+     */
+    public void saveTasks(List<Task> tasks) throws IOException {
+        saveSnapshot(worker == null ? tasks : new ArrayList<>(tasks)); // The caller may change its list once queued
+    }
+
+    /*
+    Saves a list that nobody changes any more, which the async writer can therefore read later without a copy
+     */
+    private void saveSnapshot(List<Task> tasks) throws IOException {
+        recordsSinceSnapshot = 0;
+        isJournalStale = false;
+        if (worker != null) {
+            worker.submitSnapshot(tasks);
+            return;
+        }
+        writeSnapshot(tasks, true);
+    }
+
+    /**
+     * Stops journaling mutations until the next {@link #saveTasks(List)}, for bulk changes that are saved once.
+     * Nothing is written per mutation in the meantime, and if the application stops before that save,
+     * the task file and journal still hold the tasks as they were before the bulk update began.
+     */
+    public void beginBulkUpdate() {
+        isJournalStale = true;
+    }
+
+    /*
+    Writes the snapshot to a sibling temporary file and atomically renames it over the task file,
+    so a crash at any point leaves either the old or the new snapshot, never a truncated one.
+    If the task file cannot be replaced, e.g. while another program has it open on Windows, the save fails
+    and the old snapshot and journal stay authoritative; the task file is never overwritten in place.
+     */
+    private void writeSnapshot(List<Task> tasks, boolean isForced) throws IOException {
+        Path target = Path.of(taskFilePath).toAbsolutePath();
+        Path temp = Path.of(taskFilePath + TEMP_SUFFIX).toAbsolutePath();
+        Files.createDirectories(target.getParent()); // Ensure the directory exists
+
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        long start = Metrics.start();
+        long size;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (taskFilePath.endsWith(BINARY_SUFFIX)) {
+                BinaryTaskFile.write(tasks, channel);
+            } else {
+                writeText(tasks, channel);
+            }
+            if (isForced) {
+                channel.force(true);
+            }
+            size = channel.size();
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        if (isForced) {
+            syncDirectory(target.getParent());
+        }
+        Metrics.record(Metrics.Stage.WRITE_SNAPSHOT, start, size);
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = StorageEvent.SAVE;
+            event.path = taskFilePath;
+            event.taskCount = tasks.size();
+            event.bytes = size;
+            event.commit();
+        }
+
+        if (journal != null) {
+            journal.reset();
+        }
+    }
+
+    private static void writeText(List<Task> tasks, FileChannel channel) throws IOException {
+        BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8));
+        StringBuilder line = new StringBuilder();
+        for (Task task : tasks) {
+            line.setLength(0);
+            TaskCodec.encode(task, line);
+            writer.append(line).append('\n');
+        }
+        writer.flush();
+    }
+
+    /*
+    Makes the rename itself durable. Not every platform can open a directory, so this is best effort.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // The rename is still atomic, only its durability is left to the file system
+        }
+    }
+
+    /*
+    A temporary snapshot only replaces the task file once it is completely written,
+    so any leftover one belongs to a save that was interrupted and is safe to drop. Returns whether there was one.
+     */
+    private boolean discardIncompleteSnapshot() throws IOException {
+        return Files.deleteIfExists(Path.of(taskFilePath + TEMP_SUFFIX));
+    }
+
+    /**
+     * Makes the current list of tasks durable.
+     * Without a journal this saves the whole list; in journal mode the mutations are already
+     * on disk, so the list is only written out once the journal grows past the compaction threshold.
+     * If the async writer failed since the last call, a full save is queued to repair the
+     * journal and the failure is reported.
+     *
+     * @param tasks The current list of tasks, which must not change afterwards, since the async writer
+     *              reads it without copying.
+     * @throws IOException If an error occurs while writing to the file.
+     */
+    public void persist(List<Task> tasks) throws IOException {
+        IOException failure = worker == null ? null : worker.takeFailure();
+        if (failure != null || journal == null || isJournalStale || recordsSinceSnapshot >= compactionThreshold) {
+            saveSnapshot(tasks);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Blocks until every change submitted to the async writer is written.
+     * Does nothing when the storage writes synchronously.
+     *
+     * @throws IOException If a queued write failed.
+     */
+    public void flush() throws IOException {
+        if (worker == null) {
+            return;
+        }
+        worker.flush();
+        IOException failure = worker.takeFailure();
+        if (failure != null) {
+            isJournalStale = true;
+            throw failure;
+        }
+    }
+
+    /**
+     * Flushes pending writes and releases the files held open by this storage.
+     *
+     * @throws IOException If a queued write failed or a file cannot be closed.
+     */
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            if (worker != null) {
+                worker.close();
+                worker = null;
+                removeFlushOnExit();
+            }
+            if (journal != null) {
+                journal.close();
+            }
+            if (cheerQuotes != null) {
+                cheerQuotes.close();
+            }
+        }
+    }
+
+    /*
+    Unregisters the shutdown hook, which would otherwise keep this storage reachable until the application exits
+     */
+    private void removeFlushOnExit() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(flushOnExit);
+        } catch (IllegalStateException e) {
+            // Closed by another shutdown hook; the application is exiting anyway
+        }
+        flushOnExit = null;
+    }
+
+    /**
+     * Appends a mutation to the journal. Does nothing when journal mode is off.
+     * If the record cannot be written, the journal is marked stale and the next
+     * {@link #persist(List)} falls back to a full save.
+     *
+     * @param op   The mutation that was applied to the task list.
+     * @param args The arguments of the mutation.
+     */
+    void log(Journal.Op op, String... args) {
+        if (journal == null || isJournalStale) {
+            return;
+        }
+        String record = Journal.encode(op, args);
+        recordsSinceSnapshot++;
+        if (worker != null) {
+            worker.submitRecord(record);
+            return;
+        }
+        try {
+            journal.append(List.of(record));
+        } catch (IOException e) {
+            isJournalStale = true;
+        }
+    }
+
+    /**
+     * Parses a line in the display format that older versions saved and creates the corresponding task object.
+     *
+     * @param line The line representing a task in the saved file.
+     * @return The parsed task object, or null if the line is malformed.
+     */
+    private Optional<Task> parseTask(String line) {
+        // Guard clause: blank line or null
+        if (line == null || line.isBlank()) {
+            return Optional.empty();
+        }
+
+        // Validate length to avoid IndexOutOfBounds
+        if (line.length() < 7) {
+            return Optional.empty();
+        }
+
+        String taskType = line.substring(1, 2);
+        boolean isDone = (line.charAt(4) == 'X');
+        String details = line.substring(7).trim();
+
+        // 1) Get Optional<Task> from helper
+        Optional<Task> maybeTask = createTaskFromType(taskType, details);
+
+        // 2) If empty, skip; the text file counts the skipped line
+        if (maybeTask.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // 3) Extract the Task and mark if done
+        Task task = maybeTask.get();
+        if (isDone) {
+            task.markAsDone();
+        }
+
+        return Optional.of(task);
+    }
+
+    private Optional<Task> createTaskFromType(String taskType, String details) {
+        switch (taskType) {
+        case "T":
+            return parseToDo(details);
+        case "D":
+            return parseDeadline(details);
+        case "E":
+            return parseEvent(details);
+        default:
+            return Optional.empty();
+        }
+    }
+
+    private Optional<Task> parseToDo(String details) {
+        // If you want to guard for empty details, do so here
+        return Optional.of(new ToDo(details));
+    }
+
+    private Optional<Task> parseDeadline(String details) {
+        // e.g., "Some desc (by: 12/12/2024 1800)"
+        String[] parts = details.split("\\(by: ", 2);
+        if (parts.length < 2) {
+            return Optional.empty();
+        }
+        String desc = parts[0].trim();
+        String deadlineStr = parts[1].trim();
+        if (deadlineStr.endsWith(")")) {
+            deadlineStr = deadlineStr.substring(0, deadlineStr.length() - 1).trim();
+        }
+        return Optional.of(new Deadline(desc, TaskCodec.fromDisplayDate(deadlineStr)));
+    }
+
+    private Optional<Task> parseEvent(String details) {
+        // e.g. "Meeting from: 12/12/2024 1800 to: 12/12/2024 2000"
+        String[] parts = details.split("from: | to: ");
+        if (parts.length < 3) {
+            return Optional.empty();
+        }
+        return Optional.of(new Event(parts[0].trim(), TaskCodec.fromDisplayDate(parts[1].trim()),
+                TaskCodec.fromDisplayDate(parts[2].trim())));
+    }
+
+
+
+    /**
+     * Retrieves a random motivational quote from a file.
+     *
+     * @param cheerFilePath The path to the cheer quotes file.
+     * @return A randomly selected quote from the file.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    public synchronized String getRandomQuote(String cheerFilePath) throws IOException {
+        Path file = Path.of(cheerFilePath);
+        if (cheerQuotes == null || !cheerQuotes.isFor(file)) {
+            if (cheerQuotes != null) {
+                cheerQuotes.close();
+            }
+            cheerQuotes = new CheerQuotes(file);
+        }
+        return cheerQuotes.getRandomQuote();
+    }
+}
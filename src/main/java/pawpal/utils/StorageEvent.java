@@ -0,0 +1,34 @@
+package pawpal.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for loading a task file or writing a snapshot of it.
+ * Snapshots written by the async writer are recorded on its thread, when the write actually happens.
+ */
+@Name("pawpal.Storage")
+@Label("Storage")
+@Category("PawPal")
+@Description("A task file loaded with its journal, or a snapshot written")
+final class StorageEvent extends Event {
+    static final String LOAD = "load";
+    static final String SAVE = "save";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Path")
+    String path;
+
+    @Label("Task Count")
+    int taskCount;
+
+    @Label("Bytes")
+    @DataAmount
+    long bytes;
+}
@@ -0,0 +1,33 @@
+package pawpal.utils;
+
+import java.io.IOException;
+import java.util.List;
+
+import pawpal.tasks.Task;
+
+/**
+ * Command-line tool that converts a task file between the text and binary formats.
+ * The source format is detected from its content; the target format follows its extension,
+ * so {@code tasks.txt -> tasks.bin} produces a binary file and the reverse produces text.
+ */
+public class TaskFileConverter {
+
+    /**
+     * Converts the task file named by the first argument into the file named by the second.
+     *
+     * @param args The source and target file paths.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: TaskFileConverter <source file> <target file>");
+            return;
+        }
+        try {
+            List<Task> tasks = new Storage(args[0]).loadTasks();
+            new Storage(args[1]).saveTasks(tasks);
+            System.out.println("Converted " + tasks.size() + " tasks from " + args[0] + " to " + args[1]);
+        } catch (IOException e) {
+            System.out.println("Conversion failed: " + e.getMessage());
+        }
+    }
+}
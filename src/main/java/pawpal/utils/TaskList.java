@@ -1,172 +1,504 @@
-package pawpal.utils;
-
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.stream.Collectors;
-
-import pawpal.tasks.Deadline;
-import pawpal.tasks.Event;
-import pawpal.tasks.Task;
-import pawpal.tasks.ToDo;
-
-/**
- * Manages the task list, including adding, removing, and updating tasks.
- */
-public class TaskList {
-
-    private final List<Task> tasks;
-    private final Storage storage;
-
-    /**
-     * Constructs a new {@code TaskList} with an empty task list.
-     * Initializes storage and loads tasks.
-     */
-    public TaskList(Storage storage) {
-        this.tasks = new ArrayList<>();
-        this.storage = storage;
-        loadTasksFromStorage();
-    }
-
-    /**
-     * Loads tasks from storage when the application starts.
-     */
-    private void loadTasksFromStorage() {
-        try {
-            tasks.addAll(storage.loadTasks());
-        } catch (IOException e) {
-            throw new RuntimeException("Error loading tasks.", e);
-        }
-    }
-
-    /**
-     * Adds a new ToDo task to the list.
-     *
-     * @param description The description of the ToDo task.
-     * @return The response message after successfully adding the task.
-     */
-    public String addToDo(String description) {
-        if (description == null || description.trim().isEmpty()) {
-            throw new IllegalArgumentException("Task description cannot be empty!");
-        }
-        Task task = new ToDo(description);
-        tasks.add(task);
-        return Printer.getTaskAddedMessage(task.toString(), tasks.size());
-    }
-
-    /**
-     * Adds a new Deadline task to the list.
-     *
-     * @param description The description of the Deadline task.
-     * @param deadline    The due date and time for the task.
-     * @return The response message after successfully adding the task.
-     */
-    public String addDeadline(String description, String deadline) {
-        Task task = new Deadline(description, deadline);
-        tasks.add(task);
-        return Printer.getTaskAddedMessage(task.toString(), tasks.size());
-    }
-
-    /**
-     * Adds a new Event task to the list.
-     *
-     * @param description The description of the Event task.
-     * @param from        The starting time of the event.
-     * @param to          The ending time of the event.
-     * @return The response message after successfully adding the task.
-     */
-    public String addEvent(String description, String from, String to) {
-        Task task = new Event(description, from, to);
-        tasks.add(task);
-        return Printer.getTaskAddedMessage(task.toString(), tasks.size());
-    }
-
-    /**
-     * Deletes a task from the list based on the task number.
-     *
-     * @param taskNumber The 1-based index of the task to be deleted.
-     * @return The response message indicating success or failure.
-     */
-    public String deleteTask(int taskNumber) {
-        if (taskNumber > 0 && taskNumber <= tasks.size()) {
-            Task task = tasks.remove(taskNumber - 1);
-            return Printer.getTaskDeletedMessage(task, tasks.size());
-        }
-        return Printer.getInvalidTaskNumberMessage();
-    }
-
-    /**
-     * Marks a task as completed based on the task number.
-     *
-     * @param taskNumber The 1-based index of the task to be marked as completed.
-     * @return The response message indicating success or failure.
-     */
-    public String markTask(int taskNumber) {
-        if (taskNumber > 0 && taskNumber <= tasks.size()) {
-            Task task = tasks.get(taskNumber - 1);
-            task.markAsDone();
-            return Printer.getTaskMarkedMessage(task);
-        }
-        return Printer.getInvalidTaskNumberMessage();
-    }
-
-    /**
-     * Marks a task as not completed based on the task number.
-     *
-     * @param taskNumber The 1-based index of the task to be marked as not completed.
-     * @return The response message indicating success or failure.
-     */
-    public String unmarkTask(int taskNumber) {
-        if (taskNumber > 0 && taskNumber <= tasks.size()) {
-            Task task = tasks.get(taskNumber - 1);
-            task.markAsNotDone();
-            return Printer.getTaskUnmarkedMessage(task);
-        }
-        return Printer.getInvalidTaskNumberMessage();
-    }
-
-    /**
-     * Searches for tasks that contain the given keyword in their description.
-     *
-     * @param keyword The keyword to search for in task descriptions.
-     * @return The response message listing the matching tasks.
-     */
-    public String findTasks(String keyword) {
-        List<Task> matchingTasks = tasks.stream()
-                .filter(task -> task.getDescription().toLowerCase().contains(keyword.toLowerCase()))
-                .collect(Collectors.toList());
-
-        return Printer.getMatchingTasksMessage(matchingTasks);
-    }
-
-
-    /**
-     * Retrieves a random motivational quote from a file.
-     *
-     * @return A randomly selected quote from the stored list.
-     * @throws IOException If an error occurs while reading the file.
-     */
-    public String getRandomQuote() throws IOException {
-        return storage.getRandomQuote("./data/cheer.txt");
-    }
-
-    /**
-     * Returns the current list of tasks.
-     *
-     * @return The list of tasks.
-     */
-    public List<Task> getTasks() {
-        return tasks;
-    }
-
-    /**
-     * Sorts the tasks in the following order:
-     * 1. ToDo tasks first
-     * 2. Deadline tasks sorted by the nearest deadline
-     * 3. Event tasks sorted by the earliest start time
-     */
-    public void sortTasks() {
-        Collections.sort(tasks);
-    }
-}
+package pawpal.utils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import pawpal.tasks.Deadline;
+import pawpal.tasks.Event;
+import pawpal.tasks.Task;
+import pawpal.tasks.ToDo;
+
+/**
+ * Manages the task list, including adding, removing, and updating tasks.
+ * <p>
+ * The list can be shared by several threads, e.g. the chat window and a script. Every change derives
+ * a new {@link TaskSnapshot} from the current one and then publishes it, so listing and searching
+ * read the latest published snapshot without taking a lock and never see a change half applied.
+ * Changes take the lock of the task list, so they are applied, and journaled, one at a time.
+ * Consecutive snapshots share all the storage a change leaves alone, so a change copies only the directories
+ * of the list and its indexes and the few chunks it touches; only sorting rebuilds them.
+ */
+public class TaskList {
+
+    private final Storage storage;
+    private volatile TaskSnapshot snapshot;
+    private int nextId = 1;
+
+    /**
+     * Constructs a new {@code TaskList} with an empty task list.
+     * Initializes storage and loads tasks.
+     */
+    public TaskList(Storage storage) {
+        this.storage = storage;
+        List<Task> tasks = loadTasksFromStorage();
+        long start = Metrics.start();
+        assignMissingIds(tasks);
+        Metrics.record(Metrics.Stage.ASSIGN_IDS, start, 0);
+        this.snapshot = new TaskSnapshot(tasks);
+    }
+
+    /**
+     * Loads tasks from storage when the application starts.
+     * The storage's list is used as is, so tasks are only decoded once a command reads them.
+     */
+    private List<Task> loadTasksFromStorage() {
+        try {
+            return storage.loadTasks();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error loading tasks.", e);
+        }
+    }
+
+    /*
+    Finds the next free ID from the saved IDs, decoding only tasks that have none. Tasks saved before
+    IDs existed are numbered after the highest ID in list order, which comes out the same on every load
+    until the list is saved with them, so journaling waits for that save.
+     */
+    private void assignMissingIds(List<Task> tasks) {
+        boolean isMissing = false;
+        for (int i = 0; i < tasks.size(); i++) {
+            int id = idAt(tasks, i);
+            nextId = Math.max(nextId, id + 1);
+            isMissing |= id == 0;
+        }
+        if (!isMissing) {
+            return;
+        }
+        for (int i = 0; i < tasks.size(); i++) {
+            if (idAt(tasks, i) == 0) {
+                tasks.get(i).setId(nextId++);
+            }
+        }
+        storage.beginBulkUpdate();
+    }
+
+    private static int idAt(List<Task> tasks, int index) {
+        return tasks instanceof LazyTaskList lazyTasks ? lazyTasks.getId(index) : tasks.get(index).getId();
+    }
+
+    /**
+     * Adds a new ToDo task to the list.
+     *
+     * @param description The description of the ToDo task.
+     * @return The response message after successfully adding the task.
+     */
+    public synchronized String addToDo(String description) {
+        if (description == null || description.trim().isEmpty()) {
+            throw new IllegalArgumentException("Task description cannot be empty!");
+        }
+        Task task = new ToDo(description);
+        task.setId(nextId++);
+        TaskSnapshot next = publish(snapshot.withAdded(task), Journal.Op.ADD_TODO, description,
+                String.valueOf(task.getId()));
+        return Printer.getTaskAddedMessage(task.toString(), next.size(), task.getId());
+    }
+
+    /**
+     * Adds a new Deadline task to the list.
+     *
+     * @param description The description of the Deadline task.
+     * @param deadline    The due date and time for the task.
+     * @return The response message after successfully adding the task.
+     */
+    public synchronized String addDeadline(String description, String deadline) {
+        Task task = new Deadline(description, deadline);
+        task.setId(nextId++);
+        TaskSnapshot next = publish(snapshot.withAdded(task), Journal.Op.ADD_DEADLINE, description, deadline,
+                String.valueOf(task.getId()));
+        return Printer.getTaskAddedMessage(task.toString(), next.size(), task.getId());
+    }
+
+    /**
+     * Adds a new Event task to the list.
+     *
+     * @param description The description of the Event task.
+     * @param from        The starting time of the event.
+     * @param to          The ending time of the event.
+     * @return The response message after successfully adding the task.
+     */
+    public synchronized String addEvent(String description, String from, String to) {
+        Task task = new Event(description, from, to);
+        task.setId(nextId++);
+        TaskSnapshot next = publish(snapshot.withAdded(task), Journal.Op.ADD_EVENT, description, from, to,
+                String.valueOf(task.getId()));
+        return Printer.getTaskAddedMessage(task.toString(), next.size(), task.getId());
+    }
+
+    /**
+     * Deletes a task from the list based on the task number.
+     *
+     * @param taskNumber The 1-based index of the task to be deleted.
+     * @return The response message indicating success or failure.
+     */
+    public synchronized String deleteTask(int taskNumber) {
+        TaskSnapshot current = snapshot;
+        if (taskNumber > 0 && taskNumber <= current.size()) {
+            Task task = current.get(taskNumber - 1);
+            TaskSnapshot next = publish(current.withRemoved(single(taskNumber)), Journal.Op.DELETE,
+                    String.valueOf(taskNumber));
+            return Printer.getTaskDeletedMessage(task, next.size());
+        }
+        return Printer.getInvalidTaskNumberMessage();
+    }
+
+    /**
+     * Marks a task as completed based on the task number.
+     *
+     * @param taskNumber The 1-based index of the task to be marked as completed.
+     * @return The response message indicating success or failure.
+     */
+    public synchronized String markTask(int taskNumber) {
+        TaskSnapshot current = snapshot;
+        if (taskNumber > 0 && taskNumber <= current.size()) {
+            TaskSnapshot next = publish(current.withDone(single(taskNumber), true), Journal.Op.MARK,
+                    String.valueOf(taskNumber));
+            return Printer.getTaskMarkedMessage(next.get(taskNumber - 1));
+        }
+        return Printer.getInvalidTaskNumberMessage();
+    }
+
+    /**
+     * Marks a task as not completed based on the task number.
+     *
+     * @param taskNumber The 1-based index of the task to be marked as not completed.
+     * @return The response message indicating success or failure.
+     */
+    public synchronized String unmarkTask(int taskNumber) {
+        TaskSnapshot current = snapshot;
+        if (taskNumber > 0 && taskNumber <= current.size()) {
+            TaskSnapshot next = publish(current.withDone(single(taskNumber), false), Journal.Op.UNMARK,
+                    String.valueOf(taskNumber));
+            return Printer.getTaskUnmarkedMessage(next.get(taskNumber - 1));
+        }
+        return Printer.getInvalidTaskNumberMessage();
+    }
+
+    /**
+     * Deletes every task at the given positions in a single pass over the list.
+     *
+     * @param selection The 0-based positions of the tasks to delete, e.g. from {@link TaskRanges#parse(String, int)}.
+     * @return The response message summarizing the deletion.
+     */
+    public synchronized String deleteTasks(BitSet selection) {
+        TaskSnapshot current = snapshot;
+        if (selection.isEmpty()) {
+            return Printer.getNoTasksSelectedMessage();
+        }
+        if (selection.length() > current.size()) {
+            return Printer.getInvalidTaskNumberMessage();
+        }
+        TaskSnapshot next = publish(current.withRemoved(selection), Journal.Op.DELETE_ALL,
+                TaskRanges.format(selection));
+        return Printer.getTasksDeletedMessage(selection.cardinality(), next.size());
+    }
+
+    /**
+     * Marks every task at the given positions as completed.
+     *
+     * @param selection The 0-based positions of the tasks to mark.
+     * @return The response message summarizing the change.
+     */
+    public synchronized String markTasks(BitSet selection) {
+        TaskSnapshot current = snapshot;
+        if (selection.isEmpty()) {
+            return Printer.getNoTasksSelectedMessage();
+        }
+        if (selection.length() > current.size()) {
+            return Printer.getInvalidTaskNumberMessage();
+        }
+        publish(current.withDone(selection, true), Journal.Op.MARK_ALL, TaskRanges.format(selection));
+        return Printer.getTasksMarkedMessage(selection.cardinality());
+    }
+
+    /**
+     * Marks every task at the given positions as not completed.
+     *
+     * @param selection The 0-based positions of the tasks to unmark.
+     * @return The response message summarizing the change.
+     */
+    public synchronized String unmarkTasks(BitSet selection) {
+        TaskSnapshot current = snapshot;
+        if (selection.isEmpty()) {
+            return Printer.getNoTasksSelectedMessage();
+        }
+        if (selection.length() > current.size()) {
+            return Printer.getInvalidTaskNumberMessage();
+        }
+        publish(current.withDone(selection, false), Journal.Op.UNMARK_ALL, TaskRanges.format(selection));
+        return Printer.getTasksUnmarkedMessage(selection.cardinality());
+    }
+
+    /**
+     * Deletes the task a selector picks, e.g. by its ID. Picking and deleting the task is one change,
+     * so no other change can move the task in between.
+     *
+     * @param selector Returns the 1-based number of the task in this list; runs with the lock of the list held.
+     * @return The response message indicating success or failure.
+     */
+    public synchronized String deleteTask(ToIntFunction<TaskList> selector) {
+        return deleteTask(selector.applyAsInt(this));
+    }
+
+    /**
+     * Marks the task a selector picks as completed, see {@link #deleteTask(ToIntFunction)}.
+     *
+     * @param selector Returns the 1-based number of the task in this list; runs with the lock of the list held.
+     * @return The response message indicating success or failure.
+     */
+    public synchronized String markTask(ToIntFunction<TaskList> selector) {
+        return markTask(selector.applyAsInt(this));
+    }
+
+    /**
+     * Marks the task a selector picks as not completed, see {@link #deleteTask(ToIntFunction)}.
+     *
+     * @param selector Returns the 1-based number of the task in this list; runs with the lock of the list held.
+     * @return The response message indicating success or failure.
+     */
+    public synchronized String unmarkTask(ToIntFunction<TaskList> selector) {
+        return unmarkTask(selector.applyAsInt(this));
+    }
+
+    /**
+     * Deletes the tasks a selector picks, e.g. {@link #selectDone()}. Picking and deleting the tasks is
+     * one change, so no other change can move a task in between.
+     *
+     * @param selector Returns the 0-based positions of the tasks in this list, or null if the selection is
+     *                 malformed; runs with the lock of the list held.
+     * @return The response message summarizing the deletion.
+     */
+    public synchronized String deleteTasks(Function<TaskList, BitSet> selector) {
+        BitSet selection = selector.apply(this);
+        return selection == null ? Printer.getSelectionUsageMessage() : deleteTasks(selection);
+    }
+
+    /**
+     * Marks the tasks a selector picks as completed, see {@link #deleteTasks(Function)}.
+     *
+     * @param selector Returns the 0-based positions of the tasks in this list, or null if the selection is
+     *                 malformed; runs with the lock of the list held.
+     * @return The response message summarizing the change.
+     */
+    public synchronized String markTasks(Function<TaskList, BitSet> selector) {
+        BitSet selection = selector.apply(this);
+        return selection == null ? Printer.getSelectionUsageMessage() : markTasks(selection);
+    }
+
+    /**
+     * Marks the tasks a selector picks as not completed, see {@link #deleteTasks(Function)}.
+     *
+     * @param selector Returns the 0-based positions of the tasks in this list, or null if the selection is
+     *                 malformed; runs with the lock of the list held.
+     * @return The response message summarizing the change.
+     */
+    public synchronized String unmarkTasks(Function<TaskList, BitSet> selector) {
+        BitSet selection = selector.apply(this);
+        return selection == null ? Printer.getSelectionUsageMessage() : unmarkTasks(selection);
+    }
+
+    /**
+     * Returns the current number of the task with the given stable ID.
+     *
+     * @param id The ID of the task, as shown when it was added.
+     * @return The 1-based task number, or -1 if no task has that ID.
+     */
+    public int getTaskNumber(int id) {
+        int index = snapshot.indexOfId(id);
+        return index < 0 ? -1 : index + 1;
+    }
+
+    /**
+     * Selects the completed tasks, e.g. for {@code delete done}.
+     *
+     * @return The 0-based positions of the completed tasks.
+     */
+    public BitSet selectDone() {
+        List<Task> tasks = snapshot.getTasks();
+        BitSet selection = new BitSet(tasks.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            if (tasks.get(i).isDone()) {
+                selection.set(i);
+            }
+        }
+        return selection;
+    }
+
+    /**
+     * Selects the tasks that {@link #findTasks(String)} would list for the same query.
+     *
+     * @param query The keywords to search for; must contain at least one word.
+     * @return The 0-based positions of the matching tasks, or null if the query has no words.
+     */
+    public BitSet selectMatching(String query) {
+        TaskListEvent event = new TaskListEvent();
+        event.begin();
+        long start = Metrics.start();
+        TaskSnapshot current = snapshot;
+        Set<Long> matches = current.getKeywordIndex().find(query);
+        if (matches == null) {
+            return null;
+        }
+        BitSet selection = new BitSet(current.size());
+        for (int position : current.positionsOf(matches)) {
+            selection.set(position);
+        }
+        Metrics.record(Metrics.Stage.SEARCH, start, 0);
+        commit(event, TaskListEvent.SELECT, query, current.size(), matches.size());
+        return selection;
+    }
+
+    /**
+     * Searches for tasks whose descriptions contain words starting with the given keywords.
+     * Keywords separated by spaces must all match; alternatives separated by {@code |} are combined,
+     * e.g. {@code book | pen}. Matches are listed in list order under their task numbers.
+     *
+     * @param query The keywords to search for in task descriptions.
+     * @return The response message listing the matching tasks.
+     */
+    public String findTasks(String query) {
+        TaskListEvent event = new TaskListEvent();
+        event.begin();
+        long start = Metrics.start();
+        TaskSnapshot current = snapshot;
+        Set<Long> matches = current.getKeywordIndex().find(query);
+        int[] matchPositions;
+        if (matches == null) {
+            matchPositions = new int[current.size()];
+            Arrays.setAll(matchPositions, i -> i);
+        } else {
+            matchPositions = current.positionsOf(matches);
+            Arrays.sort(matchPositions);
+        }
+        Metrics.record(Metrics.Stage.SEARCH, start, 0);
+        commit(event, TaskListEvent.FIND, query, current.size(), matchPositions.length);
+        return Printer.getMatchingTasksMessage(current.getTasks(), matchPositions);
+    }
+
+    /**
+     * Lists the deadlines and events dated strictly before the given date, earliest first.
+     *
+     * @param date The exclusive upper bound.
+     * @return The response message listing the matching tasks.
+     */
+    public String findTasksBefore(LocalDateTime date) {
+        TaskSnapshot current = snapshot;
+        return Printer.getDatedTasksMessage(current.getTasks(),
+                current.positionsOf(current.getDateIndex().findBefore(date)));
+    }
+
+    /**
+     * Lists the deadlines and events dated within the given range, earliest first.
+     *
+     * @param from The inclusive lower bound.
+     * @param to   The inclusive upper bound.
+     * @return The response message listing the matching tasks.
+     */
+    public String findTasksBetween(LocalDateTime from, LocalDateTime to) {
+        TaskSnapshot current = snapshot;
+        return Printer.getDatedTasksMessage(current.getTasks(),
+                current.positionsOf(current.getDateIndex().findBetween(from, to)));
+    }
+
+    /**
+     * Lists the next unfinished deadlines and events dated at or after the given time.
+     *
+     * @param now   The time to start from.
+     * @param count The maximum number of tasks to list.
+     * @return The response message listing the matching tasks.
+     */
+    public String findUpcomingTasks(LocalDateTime now, int count) {
+        TaskSnapshot current = snapshot;
+        return Printer.getDatedTasksMessage(current.getTasks(),
+                current.positionsOf(current.getDateIndex().findUpcoming(now, count)));
+    }
+
+    /**
+     * Retrieves a random motivational quote from a file.
+     *
+     * @return A randomly selected quote from the stored list.
+     * @throws IOException If an error occurs while reading the file.
+     */
+    public String getRandomQuote() throws IOException {
+        return storage.getRandomQuote("./data/cheer.txt");
+    }
+
+    /**
+     * Returns the current list of tasks. The list is a snapshot: it never changes,
+     * and later changes to the task list show up in the list returned by the next call.
+     *
+     * @return A read-only list of the tasks.
+     */
+    public List<Task> getTasks() {
+        return snapshot.getTasks();
+    }
+
+    /**
+     * Returns the mutation generation of the list.
+     * The generation increases on every successful add, delete, mark, unmark and sort,
+     * so callers can compare it with a previously seen value to tell whether the list changed.
+     *
+     * @return The number of mutations applied since the list was loaded.
+     */
+    public long getGeneration() {
+        return snapshot.getGeneration();
+    }
+
+    /**
+     * Makes the current list of tasks durable, see {@link Storage#persist(List)}.
+     * No change can slip in between taking the snapshot and handing it to the storage,
+     * so the saved snapshot always covers every journaled change. Snapshots never change,
+     * so the async writer takes this one as it is and decodes its tasks off the lock.
+     *
+     * @throws IOException If an error occurs while writing to the file.
+     */
+    public synchronized void persist() throws IOException {
+        storage.persist(snapshot.getTasks());
+    }
+
+    /**
+     * Sorts the tasks in the following order:
+     * 1. ToDo tasks first
+     * 2. Deadline tasks sorted by the nearest deadline
+     * 3. Event tasks sorted by the earliest start time
+     */
+    public synchronized void sortTasks() {
+        TaskListEvent event = new TaskListEvent();
+        event.begin();
+        TaskSnapshot sorted = publish(snapshot.sorted(), Journal.Op.SORT);
+        commit(event, TaskListEvent.SORT, null, sorted.size(), sorted.size());
+    }
+
+    private static void commit(TaskListEvent event, String operation, String query, int taskCount, int resultCount) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation;
+            event.query = query;
+            event.taskCount = taskCount;
+            event.resultCount = resultCount;
+            event.commit();
+        }
+    }
+
+    /*
+    Publishes the next snapshot and journals the change. Called with the lock held, so
+    snapshots are published and journal records written in the same order.
+     */
+    private TaskSnapshot publish(TaskSnapshot next, Journal.Op op, String... args) {
+        snapshot = next;
+        storage.log(op, args);
+        return next;
+    }
+
+    private static BitSet single(int taskNumber) {
+        BitSet selection = new BitSet(taskNumber);
+        selection.set(taskNumber - 1);
+        return selection;
+    }
+}
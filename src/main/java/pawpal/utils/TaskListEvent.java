@@ -0,0 +1,32 @@
+package pawpal.utils;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event for sorting or searching a task list.
+ */
+@Name("pawpal.TaskList")
+@Label("Task List")
+@Category("PawPal")
+@Description("A task list sorted or searched by keywords")
+final class TaskListEvent extends Event {
+    static final String SORT = "sort";
+    static final String FIND = "find";
+    static final String SELECT = "select";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Query")
+    String query;
+
+    @Label("Task Count")
+    int taskCount;
+
+    @Label("Result Count")
+    int resultCount;
+}
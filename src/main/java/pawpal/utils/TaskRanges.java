@@ -0,0 +1,116 @@
+package pawpal.utils;
+
+import java.util.BitSet;
+import java.util.List;
+
+import pawpal.tasks.Task;
+
+/**
+ * Task number lists such as {@code 3,7,9-20}, as typed by the user and recorded in the journal.
+ * Numbers are 1-based like the task list shown to the user; the resulting sets hold 0-based positions.
+ */
+public final class TaskRanges {
+    private TaskRanges() {
+    }
+
+    /**
+     * Parses comma-separated task numbers and inclusive ranges.
+     *
+     * @param text      The numbers and ranges, e.g. {@code 3, 7, 9-20}.
+     * @param taskCount The number of tasks in the list.
+     * @return The 0-based positions, or null if the text is malformed or names a task that does not exist.
+     */
+    public static BitSet parse(String text, int taskCount) {
+        BitSet positions = new BitSet(taskCount);
+        int start = 0;
+        while (start <= text.length()) {
+            int end = text.indexOf(',', start);
+            end = end < 0 ? text.length() : end;
+            int dash = text.indexOf('-', start);
+            int first;
+            int last;
+            if (dash < 0 || dash > end) {
+                first = parseNumber(text, start, end);
+                last = first;
+            } else {
+                first = parseNumber(text, start, dash);
+                last = parseNumber(text, dash + 1, end);
+            }
+            if (first < 1 || last < first || last > taskCount) {
+                return null;
+            }
+            positions.set(first - 1, last);
+            start = end + 1;
+        }
+        return positions;
+    }
+
+    /**
+     * Formats positions as the shortest list of 1-based numbers and ranges, e.g. {@code 1-500,503}.
+     *
+     * @param positions The 0-based positions.
+     * @return The text that {@link #parse(String, int)} reads back into the same positions.
+     */
+    public static String format(BitSet positions) {
+        StringBuilder sb = new StringBuilder();
+        for (int first = positions.nextSetBit(0); first >= 0; first = positions.nextSetBit(first + 1)) {
+            int last = positions.nextClearBit(first) - 1;
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(first + 1);
+            if (last > first) {
+                sb.append('-').append(last + 1);
+            }
+            first = last;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Removes the tasks at the given positions, shifting each remaining task at most once.
+     *
+     * @param tasks     The list to remove from.
+     * @param positions The 0-based positions to remove.
+     */
+    static void removeAll(List<Task> tasks, BitSet positions) {
+        if (tasks instanceof LazyTaskList lazyTasks) {
+            lazyTasks.removeAll(positions);
+            return;
+        }
+        int write = positions.nextSetBit(0);
+        if (write < 0) {
+            return;
+        }
+        for (int read = write + 1; read < tasks.size(); read++) {
+            if (!positions.get(read)) {
+                tasks.set(write++, tasks.get(read));
+            }
+        }
+        tasks.subList(write, tasks.size()).clear();
+    }
+
+    /*
+    Reads a positive number between the given indices, ignoring surrounding spaces. Returns -1 if there is none.
+     */
+    private static int parseNumber(String text, int start, int end) {
+        while (start < end && text.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) == ' ') {
+            end--;
+        }
+        if (start == end || end - start > 9) {
+            return -1;
+        }
+        int number = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+}
@@ -0,0 +1,228 @@
+package pawpal.utils;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import pawpal.tasks.Task;
+
+/**
+ * One version of the task list, together with the search indexes built for it.
+ * A snapshot is never changed once created; every change to the list derives the next snapshot,
+ * which shares the tasks and indexes of this one and copies only the chunks the change touches,
+ * see {@link LazyTaskList} and {@link ChunkedSortedSet}. A change therefore costs time proportional to
+ * the tasks it changes plus a small fraction of the length of the list.
+ * Readers can use a snapshot from any thread without locking and without seeing half a change.
+ * <p>
+ * Indexes identify tasks by the order key of their position, so looking up a position is a binary search.
+ * They are built by the first search that needs them, and again after sorting, which moves every task to a
+ * new position. Two readers racing to build the same index only duplicate work, since both build it from
+ * the same tasks.
+ */
+final class TaskSnapshot {
+    private static final Comparator<TaskKey> ID_ORDER = Comparator.comparingInt(TaskKey::id)
+            .thenComparingLong(TaskKey::key);
+
+    private final LazyTaskList tasks;
+    private final List<Task> readOnlyTasks;
+    private final long generation;
+    private volatile KeywordIndex keywordIndex;
+    private volatile DateIndex dateIndex;
+    private volatile ChunkedSortedSet<TaskKey> keysById;
+
+    /*
+    The stable ID of a task and the order key of its position
+     */
+    private record TaskKey(int id, long key) {
+    }
+
+    /**
+     * Constructs the first snapshot of a loaded list.
+     *
+     * @param tasks The loaded tasks, which must not be changed afterwards.
+     */
+    TaskSnapshot(List<Task> tasks) {
+        this(tasks instanceof LazyTaskList lazyTasks ? lazyTasks : new LazyTaskList(tasks), 0);
+    }
+
+    private TaskSnapshot(LazyTaskList tasks, long generation) {
+        this.tasks = tasks;
+        this.readOnlyTasks = Collections.unmodifiableList(tasks);
+        this.generation = generation;
+    }
+
+    /**
+     * Returns the tasks of this version.
+     *
+     * @return A read-only view of the tasks.
+     */
+    List<Task> getTasks() {
+        return readOnlyTasks;
+    }
+
+    int size() {
+        return tasks.size();
+    }
+
+    Task get(int index) {
+        return tasks.get(index);
+    }
+
+    /**
+     * Returns the number of changes made to the list before this version.
+     *
+     * @return The generation.
+     */
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Derives the version with a task appended.
+     *
+     * @param task The task to add.
+     * @return The next snapshot.
+     */
+    TaskSnapshot withAdded(Task task) {
+        LazyTaskList nextTasks = tasks.copy();
+        nextTasks.add(task);
+        return derive(nextTasks, Map.of(), Map.of(nextTasks.getKey(nextTasks.size() - 1), task));
+    }
+
+    /**
+     * Derives the version without the tasks at the given positions.
+     *
+     * @param selection The 0-based positions to remove.
+     * @return The next snapshot.
+     */
+    TaskSnapshot withRemoved(BitSet selection) {
+        Map<Long, Task> removed = new HashMap<>();
+        selection.stream().forEach(i -> removed.put(tasks.getKey(i), tasks.get(i)));
+        LazyTaskList nextTasks = tasks.copy();
+        nextTasks.removeAll(selection);
+        return derive(nextTasks, removed, Map.of());
+    }
+
+    /**
+     * Derives the version in which the tasks at the given positions have the given completion status.
+     * Tasks whose status changes are replaced by changed copies; the tasks of this version stay as they are.
+     *
+     * @param selection The 0-based positions of the tasks.
+     * @param isDone    Whether the tasks are done.
+     * @return The next snapshot.
+     */
+    TaskSnapshot withDone(BitSet selection, boolean isDone) {
+        LazyTaskList nextTasks = tasks.copy();
+        Map<Long, Task> removed = new HashMap<>();
+        Map<Long, Task> added = new HashMap<>();
+        selection.stream().forEach(i -> {
+            Task task = tasks.get(i);
+            Task changed = task.withDone(isDone);
+            if (changed != task) {
+                nextTasks.set(i, changed);
+                removed.put(tasks.getKey(i), task);
+                added.put(tasks.getKey(i), changed);
+            }
+        });
+        TaskSnapshot next = new TaskSnapshot(nextTasks, generation + 1);
+        next.keywordIndex = keywordIndex; // Descriptions and positions stay the same
+        next.keysById = keysById;
+        DateIndex currentDateIndex = dateIndex;
+        if (currentDateIndex != null) {
+            next.dateIndex = currentDateIndex.with(removed, added);
+        }
+        return next;
+    }
+
+    /**
+     * Derives the version with the tasks in their natural order.
+     *
+     * @return The next snapshot, whose indexes are built anew when first needed.
+     */
+    TaskSnapshot sorted() {
+        LazyTaskList nextTasks = tasks.copy();
+        Collections.sort(nextTasks);
+        return new TaskSnapshot(nextTasks, generation + 1);
+    }
+
+    /*
+    Carries the indexes built so far over to the next version, updated for the tasks removed and added
+     */
+    private TaskSnapshot derive(LazyTaskList nextTasks, Map<Long, Task> removed, Map<Long, Task> added) {
+        TaskSnapshot next = new TaskSnapshot(nextTasks, generation + 1);
+        KeywordIndex currentKeywordIndex = keywordIndex;
+        if (currentKeywordIndex != null) {
+            next.keywordIndex = currentKeywordIndex.with(removed, added);
+        }
+        DateIndex currentDateIndex = dateIndex;
+        if (currentDateIndex != null) {
+            next.dateIndex = currentDateIndex.with(removed, added);
+        }
+        ChunkedSortedSet<TaskKey> currentKeysById = keysById;
+        if (currentKeysById != null) {
+            next.keysById = currentKeysById.with(taskKeysOf(removed), taskKeysOf(added));
+        }
+        return next;
+    }
+
+    private static List<TaskKey> taskKeysOf(Map<Long, Task> tasks) {
+        return tasks.entrySet().stream()
+                .map(entry -> new TaskKey(entry.getValue().getId(), entry.getKey()))
+                .toList();
+    }
+
+    KeywordIndex getKeywordIndex() {
+        KeywordIndex index = keywordIndex;
+        if (index == null) {
+            index = KeywordIndex.of(tasks);
+            keywordIndex = index;
+        }
+        return index;
+    }
+
+    DateIndex getDateIndex() {
+        DateIndex index = dateIndex;
+        if (index == null) {
+            index = DateIndex.of(tasks);
+            dateIndex = index;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the position of the task with the given stable ID in O(log n): a search of the ID index,
+     * then one for the position of the key found. A hash map would answer in O(1), but every version
+     * of the list would need its own copy, making each change O(n).
+     *
+     * @param id The ID of the task.
+     * @return The 0-based position, or -1 if no task of this version has that ID.
+     */
+    int indexOfId(int id) {
+        ChunkedSortedSet<TaskKey> index = keysById;
+        if (index == null) {
+            TaskKey[] all = new TaskKey[tasks.size()];
+            for (int i = 0; i < all.length; i++) {
+                all[i] = new TaskKey(tasks.getId(i), tasks.getKey(i));
+            }
+            index = ChunkedSortedSet.of(Arrays.asList(all), ID_ORDER);
+            keysById = index;
+        }
+        TaskKey found = index.ceiling(new TaskKey(id, Long.MIN_VALUE));
+        return found == null || found.id() != id ? -1 : tasks.indexOfKey(found.key());
+    }
+
+    /**
+     * Returns the positions of the given tasks of this version.
+     *
+     * @param keys Order keys of tasks of this version, e.g. from one of its indexes.
+     * @return The 0-based positions, in the order of the keys given.
+     */
+    int[] positionsOf(Collection<Long> keys) {
+        return keys.stream().mapToInt(tasks::indexOfKey).toArray();
+    }
+}
@@ -0,0 +1,72 @@
+package pawpal.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import pawpal.tasks.Task;
+import pawpal.utils.Printer;
+import pawpal.utils.Storage;
+import pawpal.utils.TaskList;
+
+class BatchRunnerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void run_script_appliesCommandsAndSavesOnce() throws IOException {
+        String filePath = tempDir.resolve("tasks.txt").toString();
+        new TaskList(new Storage(filePath, true)).addToDo("journaled task");
+        String script = "todo read book\n\n  mark 2  \ndelete 1\nbye\ntodo never run\n";
+        StringWriter output = new StringWriter();
+
+        PawPal pawPal = new PawPal(filePath);
+        int commandCount;
+        try {
+            commandCount = new BatchRunner(pawPal, 0).run(new BufferedReader(new StringReader(script)), output);
+        } finally {
+            pawPal.closeWorkspaces();
+        }
+
+        assertEquals(4, commandCount);
+        assertTrue(output.toString().startsWith("Purrfect! I've added the task: [T][ ] read book\n"));
+        assertTrue(output.toString().endsWith("Bye! I'll be purring until we meet again.\n"));
+        assertFalse(Files.exists(Path.of(filePath + ".journal")), "The batch should be saved as a snapshot");
+        List<Task> reloaded = new Storage(filePath, true).loadTasks();
+        assertEquals(1, reloaded.size());
+        assertEquals("[T][X] read book", reloaded.get(0).toString());
+    }
+
+    @Test
+    void run_scriptSwitchingWorkspaces_savesEachTaskList() throws IOException {
+        String filePath = tempDir.resolve("tasks.txt").toString();
+        String script = "todo feed the cat\nuse work\ntodo write report\nlist\nuse default\nlist\n";
+        StringWriter output = new StringWriter();
+
+        PawPal pawPal = new PawPal(filePath);
+        try {
+            new BatchRunner(pawPal, 0).run(new BufferedReader(new StringReader(script)), output);
+            assertFalse(Files.exists(tempDir.resolve("workspaces")), "Nothing should be saved before the end");
+        } finally {
+            pawPal.closeWorkspaces();
+        }
+
+        assertTrue(output.toString().contains(Printer.getWorkspaceSwitchedMessage("work", 0)));
+        List<Task> defaultTasks = new Storage(filePath, true).loadTasks();
+        List<Task> workTasks = new Storage(tempDir.resolve("workspaces").resolve("work.txt").toString(), true)
+                .loadTasks();
+        assertEquals(List.of("[T][ ] feed the cat"), defaultTasks.stream().map(Task::toString).toList());
+        assertEquals(List.of("[T][ ] write report"), workTasks.stream().map(Task::toString).toList());
+    }
+}
@@ -0,0 +1,68 @@
+package pawpal.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import pawpal.utils.Printer;
+
+class CommandServerTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void serve_pipelinedCommands_answeredInOrderUntilBye() throws IOException {
+        PawPal pawPal = new PawPal(tempDir.resolve("tasks.txt").toString());
+        try (CommandServer server = new CommandServer(pawPal, 0);
+                Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            Thread acceptor = new Thread(server::serve);
+            acceptor.setDaemon(true);
+            acceptor.start();
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.UTF_8));
+
+            out.write("todo read book\n\ntodo feed the cat\nmark 2\nlist\nbye\nlist\n");
+            out.flush();
+
+            assertTrue(CommandServer.readResponse(in).startsWith("Purrfect! I've added the task: [T][ ] read book"));
+            assertTrue(CommandServer.readResponse(in).contains("Now you have 2 tasks"));
+            assertTrue(CommandServer.readResponse(in).endsWith("[T][X] feed the cat"));
+            assertEquals("1. [T][ ] read book\n2. [T][X] feed the cat",
+                    CommandServer.readResponse(in).lines().filter(line -> line.contains("[T]"))
+                            .reduce((a, b) -> a + "\n" + b).orElseThrow());
+            assertEquals(Printer.printBye(), CommandServer.readResponse(in));
+            assertNull(CommandServer.readResponse(in), "The connection should close after bye");
+        } finally {
+            pawPal.shutdown();
+        }
+    }
+
+    @Test
+    void readResponse_linesStartingWithDot_roundTrip() throws IOException {
+        String response = ".hidden\n\n..and a lone dot:\n.";
+        StringWriter wire = new StringWriter();
+        CommandServer.writeResponse(response, wire);
+        CommandServer.writeResponse("", wire);
+
+        BufferedReader in = new BufferedReader(new StringReader(wire.toString()));
+        assertEquals(response, CommandServer.readResponse(in));
+        assertEquals("", CommandServer.readResponse(in));
+        assertNull(CommandServer.readResponse(in));
+    }
+}
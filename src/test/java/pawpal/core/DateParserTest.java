@@ -0,0 +1,58 @@
+package pawpal.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import org.junit.jupiter.api.Test;
+
+import pawpal.tasks.DateParser;
+import pawpal.tasks.Task;
+
+class DateParserTest {
+    // A Wednesday
+    private final LocalDateTime now = LocalDateTime.of(2025, 3, 5, 14, 30);
+
+    @Test
+    void parse_absoluteFormats_sameInstant() {
+        long expected = epochSecondOf(2019, 12, 2, 18, 0);
+        assertEquals(expected, DateParser.parse("2/12/2019 1800"));
+        assertEquals(expected, DateParser.parse("2019-12-02 18:00"));
+        assertEquals(expected, DateParser.parse(" 02/12/2019   18:00 "));
+        assertEquals(epochSecondOf(2019, 12, 2, 0, 0), DateParser.parse("2/12/2019"));
+        assertEquals(epochSecondOf(2025, 2, 28, 9, 0), DateParser.parse("31/2/2025 0900"));
+    }
+
+    @Test
+    void parse_notADate_noDate() {
+        assertEquals(Task.NO_DATE, DateParser.parse("tomorrow"));
+        assertEquals(Task.NO_DATE, DateParser.parse("next month"));
+        assertEquals(Task.NO_DATE, DateParser.parse("2/12/19 1800"));
+        assertEquals(Task.NO_DATE, DateParser.parse("2/12/2019 2400"));
+        assertEquals(Task.NO_DATE, DateParser.parse("2/12/2019 1800 sharp"));
+        assertEquals(Task.NO_DATE, DateParser.parse("13/13/2019"));
+        assertEquals(Task.NO_DATE, DateParser.parse(""));
+    }
+
+    @Test
+    void parse_relativeDates_countedFromNow() {
+        assertEquals(epochSecondOf(2025, 3, 6, 0, 0), DateParser.parse("tomorrow", now));
+        assertEquals(epochSecondOf(2025, 3, 5, 23, 59) + 59, DateParser.parseEndOfDay("Today", now));
+        assertEquals(epochSecondOf(2025, 3, 10, 18, 0), DateParser.parse("next mon 1800", now));
+        assertEquals(epochSecondOf(2025, 3, 12, 9, 0), DateParser.parse("wednesday 9:00", now));
+        assertEquals(Task.NO_DATE, DateParser.parse("next month", now));
+    }
+
+    @Test
+    void resolve_relativeDate_fixedToAbsoluteText() {
+        assertEquals("7/3/2025 0900", DateParser.resolve("fri 0900", now));
+        assertEquals("6/3/2025", DateParser.resolve("tomorrow", now));
+        assertEquals("2/12/2019 1800", DateParser.resolve("2/12/2019 1800", now));
+        assertEquals("next month", DateParser.resolve("next month", now));
+    }
+
+    private static long epochSecondOf(int year, int month, int day, int hour, int minute) {
+        return LocalDateTime.of(year, month, day, hour, minute).toEpochSecond(ZoneOffset.UTC);
+    }
+}
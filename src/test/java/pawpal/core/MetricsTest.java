@@ -0,0 +1,86 @@
+package pawpal.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import pawpal.utils.Command;
+import pawpal.utils.LatencyHistogram;
+import pawpal.utils.Metrics;
+
+class MetricsTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void getPercentileNanos_uniformDurations_withinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        assertEquals(1000, histogram.getCount());
+        assertEquals(1_000_000, histogram.getMaxNanos());
+        long p50 = histogram.getPercentileNanos(0.50);
+        long p99 = histogram.getPercentileNanos(0.99);
+        assertTrue(p50 >= 500_000 && p50 <= 500_000 * 1.25, "p50 was " + p50);
+        assertTrue(p99 >= 990_000 && p99 <= 1_000_000, "p99 was " + p99);
+        assertEquals(0, new LatencyHistogram().getPercentileNanos(0.99));
+    }
+
+    @Test
+    void stats_afterCommands_reportsThemAndTheTaskFileLoad() {
+        PawPal pawPal = new PawPal(tempDir.resolve("tasks.txt").toString());
+        long findsBefore = Metrics.getLatency(Command.FIND).getCount();
+        pawPal.getResponse("todo chase the laser");
+        pawPal.getResponse("find laser");
+
+        String stats = pawPal.getResponse("stats");
+        pawPal.shutdown();
+
+        assertEquals(findsBefore + 1, Metrics.getLatency(Command.FIND).getCount());
+        assertTrue(stats.contains("\n  todo "), stats);
+        assertTrue(stats.contains("\n  find "), stats);
+        assertTrue(stats.contains("\n  ID assignment "), stats);
+        assertTrue(stats.contains("\n  keyword searches "), stats);
+    }
+
+    @Test
+    void getResponse_whileRecording_emitsFlightRecorderEvents() throws IOException {
+        Path recordingFile = tempDir.resolve("pawpal.jfr");
+        try (Recording recording = new Recording()) {
+            for (String event : List.of("pawpal.Command", "pawpal.Parse", "pawpal.Storage", "pawpal.TaskList")) {
+                recording.enable(event).withoutStackTrace();
+            }
+            recording.start();
+            PawPal pawPal = new PawPal(tempDir.resolve("tasks.txt").toString());
+            pawPal.getResponse("todo chase the laser");
+            pawPal.getResponse("find laser");
+            pawPal.getResponse("sort");
+            pawPal.shutdown();
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        Set<String> types = events.stream().map(event -> event.getEventType().getName()).collect(Collectors.toSet());
+        assertEquals(Set.of("pawpal.Command", "pawpal.Parse", "pawpal.Storage", "pawpal.TaskList"), types);
+        RecordedEvent find = events.stream().filter(event -> event.getEventType().getName().equals("pawpal.TaskList"))
+                .filter(event -> event.getString("operation").equals("find")).findFirst().orElseThrow();
+        assertEquals("laser", find.getString("query"));
+        assertEquals(1, find.getInt("resultCount"));
+        assertTrue(events.stream().anyMatch(event -> event.getEventType().getName().equals("pawpal.Command")
+                && "SORT".equals(event.getString("command"))));
+    }
+}
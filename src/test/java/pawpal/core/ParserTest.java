@@ -1,24 +1,41 @@
-package pawpal.core;
-
-import static org.junit.jupiter.api.Assertions.assertEquals;
-
-import org.junit.jupiter.api.Test;
-
-import pawpal.utils.Command;
-
-class ParserTest {
-    private final Parser parser = new Parser(null); // Pass null for TaskList since we're testing parsing only
-
-    @Test
-    void parseCommand_validCommand_returnsCorrectEnum() {
-        // Positive test case: Recognizing a valid command
-        assertEquals(Command.TODO, parser.parseCommand("todo read book"));
-        assertEquals(Command.DEADLINE, parser.parseCommand("deadline submit report /by tomorrow"));
-    }
-
-    @Test
-    void parseCommand_invalidCommand_returnsInvalid() {
-        // Negative test case: Handling an invalid command
-        assertEquals(Command.INVALID, parser.parseCommand("dance tango"));
-    }
-}
+package pawpal.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+import pawpal.utils.Command;
+import pawpal.utils.Printer;
+
+class ParserTest {
+    private final Parser parser = new Parser(null); // Pass null for TaskList since we're testing parsing only
+
+    @Test
+    void parseCommand_validCommand_returnsCorrectEnum() {
+        // Positive test case: Recognizing a valid command
+        assertEquals(Command.TODO, parser.parseCommand("todo read book"));
+        assertEquals(Command.DEADLINE, parser.parseCommand("deadline submit report /by tomorrow"));
+    }
+
+    @Test
+    void parseCommand_invalidCommand_returnsInvalid() {
+        // Negative test case: Handling an invalid command
+        assertEquals(Command.INVALID, parser.parseCommand("dance tango"));
+    }
+
+    @Test
+    void parseCommand_caseAndPrefixVariants_matchesWholeWordOnly() {
+        assertEquals(Command.UPCOMING, parser.parseCommand("UpComing 3"));
+        assertEquals(Command.DUE, parser.parseCommand("due"));
+        assertEquals(Command.INVALID, parser.parseCommand("todoo read"));
+        assertEquals(Command.INVALID, parser.parseCommand("to do"));
+        assertEquals(Command.INVALID, parser.parseCommand(" list"));
+        assertEquals(Command.INVALID, parser.parseCommand(""));
+    }
+
+    @Test
+    void parse_eventEndingBeforeItStarts_rejectedBeforeReachingTaskList() {
+        assertEquals(Printer.getEventOrderMessage(),
+                parser.parse(Command.EVENT, "event camp /from 3/12/2019 1800 /to 2/12/2019 1800"));
+    }
+}
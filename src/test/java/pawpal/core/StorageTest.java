@@ -0,0 +1,224 @@
+package pawpal.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import pawpal.tasks.Task;
+import pawpal.utils.Durability;
+import pawpal.utils.Storage;
+import pawpal.utils.TaskList;
+import pawpal.utils.TaskRanges;
+
+class StorageTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void loadTasks_journaledMutations_replayedOnTopOfSnapshot() throws IOException {
+        String filePath = tempDir.resolve("tasks.txt").toString();
+        TaskList taskList = new TaskList(new Storage(filePath, true));
+        taskList.addToDo("read book");
+        taskList.addDeadline("return book", "2/12/2019 1800");
+        taskList.addToDo("feed the cat");
+        taskList.markTask(3);
+        taskList.deleteTask(1);
+
+        List<Task> reloaded = new Storage(filePath, true).loadTasks();
+
+        assertEquals(2, reloaded.size());
+        assertEquals("[D][ ] return book (by: Dec 02 2019, 6:00 PM)", reloaded.get(0).toString());
+        assertEquals("[T][X] feed the cat", reloaded.get(1).toString());
+        assertFalse(new File(filePath).exists(), "Mutations should only be journaled, not snapshotted");
+    }
+
+    @Test
+    void loadTasks_journaledLineBreaksInDescriptions_roundTrip() throws IOException {
+        String filePath = tempDir.resolve("tasks.txt").toString();
+        TaskList taskList = new TaskList(new Storage(filePath, true));
+        taskList.addToDo("carriage\rreturn");
+        taskList.addToDo("tab\tand\r\nline break");
+        taskList.addToDo("after the breaks");
+
+        List<Task> reloaded = new Storage(filePath, true).loadTasks();
+
+        assertEquals(3, reloaded.size(), "No record should be torn by a line break");
+        assertEquals("carriage\rreturn", reloaded.get(0).getDescription());
+        assertEquals("tab\tand\r\nline break", reloaded.get(1).getDescription());
+        assertEquals("after the breaks", reloaded.get(2).getDescription());
+    }
+
+    @Test
+    void loadTasks_journaledBulkMutations_replayed() throws IOException {
+        String filePath = tempDir.resolve("tasks.txt").toString();
+        TaskList taskList = new TaskList(new Storage(filePath, true));
+        for (int i = 1; i <= 6; i++) {
+            taskList.addToDo("task " + i);
+        }
+        taskList.markTasks(TaskRanges.parse("1-4", 6));
+        taskList.unmarkTasks(TaskRanges.parse("2", 6));
+        taskList.deleteTasks(TaskRanges.parse("3-5", 6));
+
+        List<Task> reloaded = new Storage(filePath, true).loadTasks();
+
+        assertEquals(List.of("[T][X] task 1", "[T][ ] task 2", "[T][ ] task 6"),
+                reloaded.stream().map(Task::toString).toList());
+
+        new Storage(filePath).saveTasks(reloaded);
+        TaskList loadedList = new TaskList(new Storage(filePath));
+        loadedList.deleteTasks(TaskRanges.parse("1,3", 3));
+        assertEquals(List.of("[T][ ] task 2"), loadedList.getTasks().stream().map(Task::toString).toList());
+    }
+
+    @Test
+    void persist_thresholdReached_compactsJournalIntoSnapshot() throws IOException {
+        String filePath = tempDir.resolve("tasks.txt").toString();
+        Storage storage = new Storage(filePath, true, 2);
+        TaskList taskList = new TaskList(storage);
+        taskList.addToDo("read book");
+        storage.persist(taskList.getTasks());
+        assertFalse(new File(filePath).exists());
+
+        taskList.addToDo("feed the cat");
+        storage.persist(taskList.getTasks());
+
+        assertTrue(new File(filePath).exists());
+        assertFalse(new File(filePath + ".journal").exists());
+        assertEquals(2, new Storage(filePath, true).loadTasks().size());
+    }
+
+    @Test
+    void loadTasks_tornJournalRecord_keepsIntactPrefix() throws IOException {
+        String filePath = tempDir.resolve("tasks.txt").toString();
+        TaskList taskList = new TaskList(new Storage(filePath, true));
+        taskList.addToDo("read book");
+        Files.writeString(Path.of(filePath + ".journal"), "1234\tT\tfeed the", StandardOpenOption.APPEND);
+
+        Storage storage = new Storage(filePath, true);
+        List<Task> reloaded = storage.loadTasks();
+        assertEquals(1, storage.getSkippedLineCount());
+
+        assertEquals(1, reloaded.size());
+        assertEquals("[T][ ] read book", reloaded.get(0).toString());
+    }
+
+    @Test
+    void flush_asyncWriter_writesQueuedChanges() throws IOException {
+        String filePath = tempDir.resolve("tasks.txt").toString();
+        Storage storage = new Storage(filePath, true, 3);
+        storage.startAsyncWriter(20, Durability.WINDOW);
+        TaskList taskList = new TaskList(storage);
+        for (int i = 1; i <= 5; i++) {
+            taskList.addToDo("task " + i);
+            storage.persist(taskList.getTasks());
+        }
+        taskList.markTask(5);
+
+        storage.close();
+
+        List<Task> reloaded = new Storage(filePath, true).loadTasks();
+        assertEquals(5, reloaded.size());
+        assertEquals("[T][X] task 5", reloaded.get(4).toString());
+    }
+
+    @Test
+    void loadTasks_leftoverTempFile_discardedAndSnapshotKept() throws IOException {
+        Path file = tempDir.resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        TaskList taskList = new TaskList(storage);
+        taskList.addToDo("read book");
+        storage.saveTasks(taskList.getTasks());
+        Files.writeString(tempDir.resolve("tasks.txt.tmp"), "[T][ ] half-writ");
+
+        Storage reloadingStorage = new Storage(file.toString());
+        List<Task> reloaded = reloadingStorage.loadTasks();
+
+        assertEquals(1, reloaded.size());
+        assertEquals("[T][ ] read book", reloaded.get(0).toString());
+        assertFalse(Files.exists(tempDir.resolve("tasks.txt.tmp")));
+        assertTrue(reloadingStorage.isIncompleteSaveDiscarded());
+        assertEquals(0, reloadingStorage.getSkippedLineCount());
+    }
+
+    @Test
+    void loadTasks_mixedTextFile_skipsMalformedLinesAndStaysMutable() throws IOException {
+        Path file = tempDir.resolve("tasks.txt");
+        Files.writeString(file, "T|0|first\r\n\nD|1|no deadline\n[T][X] legacy\nE|0|camp|today|tomorrow\n[Q] ?\n");
+        Storage storage = new Storage(file.toString());
+        TaskList taskList = new TaskList(storage);
+        assertEquals(2, storage.getSkippedLineCount(), "Blank lines are not damage");
+        assertFalse(storage.isIncompleteSaveDiscarded());
+
+        taskList.deleteTask(1);
+        taskList.addToDo("last");
+        List<Task> tasks = taskList.getTasks();
+
+        assertEquals(3, tasks.size());
+        assertEquals("[T][X] legacy", tasks.get(0).toString());
+        assertEquals("[E][ ] camp from: today to: tomorrow", tasks.get(1).toString());
+        assertEquals("[T][ ] last", tasks.get(2).toString());
+    }
+
+    @Test
+    void getRandomQuote_fileChanged_servesNewQuotes() throws IOException, InterruptedException {
+        Path file = tempDir.resolve("cheer.txt");
+        Files.writeString(file, "\n   Keep purring!  \r\n\n");
+        Storage storage = new Storage(tempDir.resolve("tasks.txt").toString());
+        assertEquals("Keep purring!", storage.getRandomQuote(file.toString()));
+
+        Files.writeString(file, "Chase your dreams.\n");
+        String quote = storage.getRandomQuote(file.toString());
+        for (int i = 0; i < 100 && !quote.equals("Chase your dreams."); i++) {
+            Thread.sleep(50);
+            quote = storage.getRandomQuote(file.toString());
+        }
+        assertEquals("Chase your dreams.", quote);
+
+        Files.delete(file);
+        storage.close();
+        assertEquals("File not found!", storage.getRandomQuote(file.toString()));
+    }
+
+    @Test
+    void loadTasks_stableIds_keptInTextBinaryAndJournal() throws IOException {
+        for (String name : List.of("tasks.txt", "tasks.bin")) {
+            String filePath = tempDir.resolve(name).toString();
+            TaskList taskList = new TaskList(new Storage(filePath));
+            taskList.addToDo("read book");
+            taskList.addToDo("feed the cat");
+            taskList.addToDo("walk the dog");
+            taskList.deleteTask(2);
+            taskList.sortTasks();
+            new Storage(filePath).saveTasks(taskList.getTasks());
+
+            TaskList reloaded = new TaskList(new Storage(filePath, true));
+            assertEquals(2, reloaded.getTaskNumber(3));
+            reloaded.addToDo("buy milk");
+            assertEquals(4, new Storage(filePath, true).loadTasks().get(2).getId(), name);
+        }
+    }
+
+    @Test
+    void loadTasks_legacyLinesWithoutIds_assignedIds() throws IOException {
+        Path file = tempDir.resolve("tasks.txt");
+        Files.writeString(file, "T|0|first|7\nT|1|second\n[T][ ] legacy\n");
+        Storage storage = new Storage(file.toString());
+        TaskList taskList = new TaskList(storage);
+        storage.persist(taskList.getTasks());
+
+        assertEquals(List.of(7, 8, 9), taskList.getTasks().stream().map(Task::getId).toList());
+        assertEquals(3, taskList.getTaskNumber(9));
+        assertTrue(Files.readString(file).contains("T|1|second|8"));
+    }
+}
+
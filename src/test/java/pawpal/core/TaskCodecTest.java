@@ -0,0 +1,92 @@
+package pawpal.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import pawpal.tasks.Deadline;
+import pawpal.tasks.Event;
+import pawpal.tasks.Task;
+import pawpal.tasks.TaskCodec;
+import pawpal.utils.Storage;
+import pawpal.utils.TaskFileConverter;
+
+class TaskCodecTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void decode_encodedTasks_roundTripExactly() {
+        Task deadline = new Deadline("pay rent | utilities \\ misc", "2/12/2019 1800");
+        deadline.markAsDone();
+        Task event = new Event("team sync", "next Monday", "2/12/2019 1600");
+
+        Task decodedDeadline = TaskCodec.decode(TaskCodec.encode(deadline));
+        Task decodedEvent = TaskCodec.decode(TaskCodec.encode(event));
+
+        assertEquals("D|1|pay rent \\| utilities \\\\ misc|2/12/2019 1800", TaskCodec.encode(deadline));
+        assertEquals(deadline.toString(), decodedDeadline.toString());
+        assertEquals(event.toString(), decodedEvent.toString());
+        assertEquals("next Monday", ((Event) decodedEvent).getStart());
+    }
+
+    @Test
+    void decode_malformedLine_returnsNull() {
+        assertNull(TaskCodec.decode("D|0|missing deadline"));
+        assertNull(TaskCodec.decode("X|0|unknown type"));
+        assertNull(TaskCodec.decode("T|?|bad status"));
+    }
+
+    @Test
+    void isWellFormed_emptyDescription_rejectedLikeDecode() {
+        for (String line : List.of("T|0|", "T|1||7", "D|0||2/12/2019 1800")) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            assertFalse(TaskCodec.isWellFormed(bytes, 0, bytes.length), line);
+            assertNull(TaskCodec.decode(line), line);
+        }
+        byte[] valid = "T|0|x".getBytes(StandardCharsets.UTF_8);
+        assertTrue(TaskCodec.isWellFormed(valid, 0, valid.length));
+    }
+
+    @Test
+    void loadTasks_legacyDisplayFormat_keepsParsedDates() throws IOException {
+        Path file = tempDir.resolve("tasks.txt");
+        Files.writeString(file, "[D][X] return book (by: Dec 02 2019, 6:00 PM)\n[D][ ] test (by: tomorrow)\n");
+        Storage storage = new Storage(file.toString());
+
+        storage.saveTasks(storage.loadTasks());
+        List<Task> reloaded = storage.loadTasks();
+
+        assertEquals("[D][X] return book (by: Dec 02 2019, 6:00 PM)", reloaded.get(0).toString());
+        assertEquals("2/12/2019 1800", ((Deadline) reloaded.get(0)).getDeadline());
+        assertEquals("[D][ ] test (by: tomorrow)", reloaded.get(1).toString());
+    }
+
+    @Test
+    void loadTasks_convertedBinaryFile_matchesTextFile() throws IOException {
+        Path textFile = tempDir.resolve("tasks.txt");
+        Path binaryFile = tempDir.resolve("tasks.bin");
+        Files.writeString(textFile, "T|1|read book\nD|0|return book|2/12/2019 1800\n"
+                + "E|0|camp|tomorrow|2/12/2019 1600\nT|0|read book\n");
+
+        TaskFileConverter.main(new String[] {textFile.toString(), binaryFile.toString()});
+        List<Task> fromText = new Storage(textFile.toString()).loadTasks();
+        List<Task> fromBinary = new Storage(binaryFile.toString()).loadTasks();
+
+        assertEquals(4, fromBinary.size());
+        for (int i = 0; i < fromText.size(); i++) {
+            assertEquals(TaskCodec.encode(fromText.get(i)), TaskCodec.encode(fromBinary.get(i)));
+            assertEquals(fromText.get(i).toString(), fromBinary.get(i).toString());
+        }
+    }
+}
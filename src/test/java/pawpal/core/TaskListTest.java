@@ -1,39 +1,333 @@
-package pawpal.core;
-
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertFalse;
-import static org.junit.jupiter.api.Assertions.assertThrows;
-
-import java.util.List;
-
-import org.junit.jupiter.api.Test;
-
-import pawpal.tasks.Task;
-import pawpal.utils.Storage;
-import pawpal.utils.TaskList;
-
-class TaskListTest {
-    private final Storage storage = new Storage("./test_tasks.txt"); // Test storage file
-    private final TaskList taskList = new TaskList(storage);
-
-    @Test
-    void addToDo_validDescription_taskAdded() {
-        // Positive test case: Adding a ToDo task
-        taskList.addToDo("Buy groceries");
-        List<Task> tasks = taskList.getTasks();
-
-        assertFalse(tasks.isEmpty());
-        assertEquals(1, tasks.size());
-        assertEquals("[T][ ] Buy groceries", tasks.getFirst().toString());
-    }
-
-    @Test
-    void addToDo_emptyDescription_throwsException() {
-        // Negative test case: Adding an empty ToDo task should not be allowed
-        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
-            taskList.addToDo("");
-        });
-
-        assertEquals("Task description cannot be empty!", exception.getMessage());
-    }
-}
+package pawpal.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import pawpal.tasks.Task;
+import pawpal.utils.Command;
+import pawpal.utils.Printer;
+import pawpal.utils.Storage;
+import pawpal.utils.TaskRanges;
+import pawpal.utils.TaskList;
+
+class TaskListTest {
+    private final Storage storage = new Storage("./test_tasks.txt"); // Test storage file
+    private final TaskList taskList = new TaskList(storage);
+
+    @Test
+    void addToDo_validDescription_taskAdded() {
+        // Positive test case: Adding a ToDo task
+        taskList.addToDo("Buy groceries");
+        List<Task> tasks = taskList.getTasks();
+
+        assertFalse(tasks.isEmpty());
+        assertEquals(1, tasks.size());
+        assertEquals("[T][ ] Buy groceries", tasks.getFirst().toString());
+    }
+
+    @Test
+    void addToDo_emptyDescription_throwsException() {
+        // Negative test case: Adding an empty ToDo task should not be allowed
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> {
+            taskList.addToDo("");
+        });
+
+        assertEquals("Task description cannot be empty!", exception.getMessage());
+    }
+
+    @Test
+    void getGeneration_rejectedMutation_unchanged() {
+        taskList.addToDo("Buy groceries");
+        long generation = taskList.getGeneration();
+
+        taskList.markTask(5);
+        taskList.deleteTask(0);
+        taskList.findTasks("groceries");
+        assertEquals(generation, taskList.getGeneration());
+
+        taskList.markTask(1);
+        assertEquals(generation + 1, taskList.getGeneration());
+    }
+
+    @Test
+    void findTasks_keywordQueries_matchesShownWithListNumbers() {
+        taskList.addToDo("Buy groceries");
+        taskList.addToDo("Read book");
+        taskList.addToDo("Return library books");
+        taskList.addToDo("Feed the cat");
+        taskList.findTasks("book");
+        taskList.deleteTask(1);
+        taskList.addToDo("Read the news");
+
+        assertEquals("Here are your matching tasks:\n1. [T][ ] Read book\n2. [T][ ] Return library books",
+                taskList.findTasks("BOOK"));
+        assertEquals("Here are your matching tasks:\n1. [T][ ] Read book", taskList.findTasks("read book"));
+        assertEquals("Here are your matching tasks:\n3. [T][ ] Feed the cat\n4. [T][ ] Read the news",
+                taskList.findTasks("cat | news"));
+        assertEquals("No matching tasks found. Did the cat hide them?", taskList.findTasks("groceries"));
+    }
+
+    @Test
+    void findTasksBetween_datedTasks_listedEarliestFirst() {
+        taskList.addDeadline("Submit report", "5/3/2025 1800");
+        taskList.addToDo("Buy groceries");
+        taskList.addEvent("Team Meeting", "1/3/2025 1400", "1/3/2025 1600");
+        taskList.addDeadline("Pay rent", "sometime");
+        taskList.findTasksBefore(LocalDateTime.of(2025, 3, 1, 0, 0));
+        taskList.addDeadline("Renew passport", "3/3/2025 0900");
+        taskList.markTask(5);
+
+        assertEquals("Here are your tasks, earliest first:\n"
+                + "3. [E][ ] Team Meeting from: Mar 01 2025, 2:00 PM to: Mar 01 2025, 4:00 PM\n"
+                + "5. [D][X] Renew passport (by: Mar 03 2025, 9:00 AM)",
+                taskList.findTasksBetween(LocalDateTime.of(2025, 3, 1, 0, 0), LocalDateTime.of(2025, 3, 4, 0, 0)));
+        assertEquals("Here are your tasks, earliest first:\n1. [D][ ] Submit report (by: Mar 05 2025, 6:00 PM)",
+                taskList.findUpcomingTasks(LocalDateTime.of(2025, 3, 2, 0, 0), 1));
+        taskList.deleteTask(1);
+        assertEquals("Nothing scheduled then. Purr-fect time for a nap!",
+                taskList.findTasksBefore(LocalDateTime.of(2025, 3, 1, 0, 0)));
+    }
+
+    @Test
+    void deleteTasks_rangesAndDone_removedInOnePass() {
+        for (int i = 1; i <= 10; i++) {
+            taskList.addToDo("task " + i);
+        }
+        taskList.markTasks(TaskRanges.parse("2-4, 9", 10));
+        taskList.findTasks("task");
+
+        assertEquals("I've swiped away 4 tasks in one big paw sweep!\n"
+                + "Now there are 6 tasks remaining in your kitty checklist.",
+                taskList.deleteTasks(taskList.selectDone()));
+        taskList.deleteTasks(TaskRanges.parse("1,5-6", 6));
+
+        List<Task> tasks = taskList.getTasks();
+        assertEquals(3, tasks.size());
+        assertEquals("[T][ ] task 5", tasks.get(0).toString());
+        assertEquals("[T][ ] task 7", tasks.get(2).toString());
+        assertEquals("Here are your matching tasks:\n2. [T][ ] task 6", taskList.findTasks("6"));
+        assertNull(TaskRanges.parse("2-4,4-", 10));
+        assertNull(TaskRanges.parse("0-3", 10));
+        assertEquals("1-3,5", TaskRanges.format(TaskRanges.parse("5, 1-2, 3", 5)));
+    }
+
+    @Test
+    void list_pagesAndStreaming_showsRequestedSlice() throws IOException {
+        Parser parser = new Parser(taskList);
+        for (int i = 1; i <= 120; i++) {
+            taskList.addToDo("task " + i);
+        }
+
+        String firstPage = parser.parse(Command.LIST, "list");
+        assertTrue(firstPage.contains("\n50. [T][ ] task 50\nPage 1 of 3. Type list 2 for more."));
+        assertFalse(firstPage.contains("task 51"));
+        assertTrue(parser.parse(Command.LIST, "list 3").endsWith("\n120. [T][ ] task 120\nPage 3 of 3."));
+        assertTrue(parser.parse(Command.LIST, "list 2 10").startsWith(
+                "Here are your tasks, ready for a purr-fect day:\n11. [T][ ] task 11"));
+        assertTrue(parser.parse(Command.LIST, "list 4").startsWith("There are only 3 pages"));
+        assertTrue(parser.parse(Command.LIST, "list 2 200").startsWith("There is only 1 page to paw through!"));
+        assertEquals(Printer.getListUsageMessage(), parser.parse(Command.LIST, "list 0"));
+        assertEquals(Printer.getListUsageMessage(), parser.parse(Command.LIST, "list 1 2 3"));
+
+        StringWriter out = new StringWriter();
+        parser.parse(Command.LIST, "list all", out);
+        assertEquals(Printer.getTaskListString(taskList.getTasks()), out.toString());
+    }
+
+    @Test
+    void sortTasks_epochDates_datedFirstAndRenderingRefreshedOnMark() {
+        taskList.addEvent("Conference", "someday", "never");
+        taskList.addDeadline("Submit report", "5/3/2025 1800");
+        taskList.addDeadline("Pay rent", "whenever");
+        taskList.addDeadline("File taxes", "1/3/2025 0900");
+        taskList.addToDo("Read book");
+        taskList.sortTasks();
+
+        List<Task> tasks = taskList.getTasks();
+        assertEquals("[T][ ] Read book", tasks.get(0).toString());
+        assertEquals("[D][ ] File taxes (by: Mar 01 2025, 9:00 AM)", tasks.get(1).toString());
+        assertEquals("[D][ ] Submit report (by: Mar 05 2025, 6:00 PM)", tasks.get(2).toString());
+        assertEquals("[D][ ] Pay rent (by: whenever)", tasks.get(3).toString());
+        assertEquals("[E][ ] Conference from: someday to: never", tasks.get(4).toString());
+
+        tasks.get(1).markAsDone();
+        assertEquals("[D][X] File taxes (by: Mar 01 2025, 9:00 AM)", tasks.get(1).toString());
+        tasks.get(1).markAsNotDone();
+        assertEquals("[D][ ] File taxes (by: Mar 01 2025, 9:00 AM)", tasks.get(1).toString());
+    }
+
+    @Test
+    void markAndDeleteById_afterSort_actOnSameTask() {
+        taskList.addToDo("Read book");
+        taskList.addDeadline("File taxes", "1/3/2025 0900");
+        taskList.addToDo("Feed the cat");
+        Parser parser = new Parser(taskList);
+        taskList.sortTasks();
+
+        assertEquals(3, taskList.getTaskNumber(2));
+        assertTrue(parser.parse(Command.MARK, "mark #3").contains("[T][X] Feed the cat"));
+        assertTrue(parser.parse(Command.DELETE, "delete #1").contains("Read book"));
+        assertEquals(-1, taskList.getTaskNumber(1));
+        assertEquals(Printer.getInvalidTaskNumberMessage(), parser.parse(Command.UNMARK, "unmark #1"));
+        assertEquals(Printer.getInvalidTaskNumberMessage(), parser.parse(Command.DELETE, "delete #x"));
+
+        taskList.addToDo("Walk the dog");
+        assertEquals(4, taskList.getTasks().get(2).getId());
+    }
+
+    @Test
+    void searches_manyChangesAcrossChunks_agreeWithList() {
+        taskList.findTasks("tag");
+        taskList.findTasksBefore(LocalDateTime.of(2025, 3, 1, 0, 0));
+        taskList.getTaskNumber(1);
+        Random random = new Random(42);
+        for (int i = 0; i < 3000; i++) {
+            if (i % 2 == 0) {
+                taskList.addDeadline("item tag" + i % 7, (1 + i % 28) + "/3/2025 0900");
+            } else {
+                taskList.addToDo("item tag" + i % 7);
+            }
+            if (i % 50 == 49) {
+                BitSet selection = new BitSet();
+                for (int j = 0; j < 40; j++) {
+                    selection.set(random.nextInt(taskList.getTasks().size()));
+                }
+                if (i % 100 == 49) {
+                    taskList.deleteTasks(selection);
+                } else {
+                    taskList.markTasks(selection);
+                }
+            }
+            if (i == 1500) {
+                taskList.sortTasks();
+            }
+        }
+
+        List<Task> tasks = taskList.getTasks();
+        BitSet tagged = new BitSet();
+        long before = LocalDateTime.of(2025, 3, 10, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        long upcoming = LocalDateTime.of(2025, 3, 20, 0, 0).toEpochSecond(ZoneOffset.UTC);
+        long beforeCount = 0;
+        long upcomingCount = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            assertEquals(i + 1, taskList.getTaskNumber(task.getId()));
+            if (task.getDescription().endsWith("tag3")) {
+                tagged.set(i);
+            }
+            beforeCount += task.getSortEpochSecond() < before ? 1 : 0;
+            upcomingCount += !task.isDone() && task.getSortEpochSecond() >= upcoming
+                    && task.getSortEpochSecond() != Task.NO_DATE ? 1 : 0;
+        }
+        assertEquals(tagged, taskList.selectMatching("TAG3"));
+        assertEquals(beforeCount, taskList.findTasksBefore(LocalDateTime.of(2025, 3, 10, 0, 0)).lines().count() - 1);
+        assertEquals(upcomingCount,
+                taskList.findUpcomingTasks(LocalDateTime.of(2025, 3, 20, 0, 0), tasks.size()).lines().count() - 1);
+    }
+
+    @Test
+    void selectionsByIdAndSearch_whileOtherTasksShift_actOnSelectedTasks() throws Exception {
+        int taskCount = 4000;
+        for (int i = 1; i <= taskCount; i++) {
+            taskList.addToDo(i % 10 == 0 ? "task " + i + " flagged" : "task " + i);
+        }
+        Parser parser = new Parser(taskList);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean isSelecting = new AtomicBoolean(true);
+        Future<?> shifter = executor.submit(() -> {
+            while (isSelecting.get() && taskList.getTasks().get(0).getId() < taskCount / 2) {
+                taskList.deleteTask(1); // Moves every other task up by one
+            }
+        });
+        for (int id = taskCount; id > taskCount / 2; id--) {
+            String description = id % 10 == 0 ? "task " + id + " flagged" : "task " + id;
+            String deleted = parser.parse(Command.DELETE, "delete #" + id);
+            assertTrue(deleted.contains("] " + description + "\n"), deleted);
+            if (id % 20 == 0) {
+                parser.parse(Command.MARK, "mark find flagged");
+            }
+        }
+        isSelecting.set(false);
+        shifter.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        for (Task task : taskList.getTasks()) {
+            assertTrue(!task.isDone() || task.getDescription().endsWith("flagged"), task.toString());
+        }
+    }
+
+    @Test
+    void concurrentReadersAndWriters_readersOnlySeeWholeChanges() throws Exception {
+        int toggledCount = 100;
+        for (int i = 0; i < toggledCount; i++) {
+            taskList.addToDo("alpha " + i);
+        }
+        BitSet toggled = new BitSet();
+        toggled.set(0, toggledCount);
+        int writerCount = 4;
+        int addsPerWriter = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(writerCount * 2);
+        AtomicBoolean isWriting = new AtomicBoolean(true);
+        List<Future<?>> writers = new ArrayList<>();
+        List<Future<?>> readers = new ArrayList<>();
+        for (int w = 0; w < writerCount; w++) {
+            int writer = w;
+            writers.add(executor.submit(() -> {
+                for (int i = 0; i < addsPerWriter; i++) {
+                    taskList.addToDo("beta " + writer + " " + i);
+                    if (i % 10 == 0 && (i / 10 + writer) % 2 == 0) {
+                        taskList.markTasks(toggled);
+                    } else if (i % 10 == 0) {
+                        taskList.unmarkTasks(toggled);
+                    }
+                }
+            }));
+            readers.add(executor.submit(() -> {
+                while (isWriting.get()) {
+                    List<Task> tasks = taskList.getTasks();
+                    long doneCount = tasks.subList(0, toggledCount).stream().filter(Task::isDone).count();
+                    assertTrue(doneCount == 0 || doneCount == toggledCount, "Bulk mark seen half applied");
+                    assertEquals(tasks.size(), Printer.getTaskListString(tasks).lines().count() - 1);
+
+                    String found = taskList.findTasks("alpha");
+                    long foundDoneCount = found.lines().filter(line -> line.contains("[X]")).count();
+                    assertEquals(toggledCount, found.lines().count() - 1);
+                    assertTrue(foundDoneCount == 0 || foundDoneCount == toggledCount, "Search saw half a change");
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get(30, TimeUnit.SECONDS);
+        }
+        isWriting.set(false);
+        for (Future<?> reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<Task> tasks = taskList.getTasks();
+        assertEquals(toggledCount + writerCount * addsPerWriter, tasks.size());
+        assertEquals(tasks.size(), tasks.stream().mapToInt(Task::getId).distinct().count());
+        assertEquals(writerCount * addsPerWriter, taskList.findTasks("beta").lines().count() - 1);
+        assertEquals(tasks.size() + writerCount * addsPerWriter / 10, taskList.getGeneration());
+    }
+}
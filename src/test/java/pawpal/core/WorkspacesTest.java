@@ -0,0 +1,108 @@
+package pawpal.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import pawpal.utils.Command;
+import pawpal.utils.Printer;
+
+class WorkspacesTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void use_switchesBetweenSeparateTaskLists() {
+        String taskFile = tempDir.resolve("tasks.txt").toString();
+        PawPal pawPal = new PawPal(taskFile);
+        pawPal.getResponse("todo feed the cat");
+        assertEquals(Printer.getWorkspaceSwitchedMessage("work", 0), pawPal.getResponse("use Work"));
+        pawPal.getResponse("todo write report");
+
+        String workList = pawPal.getResponse("list");
+        assertTrue(workList.contains("write report") && !workList.contains("feed the cat"));
+        assertEquals(Printer.getCurrentWorkspaceMessage("work"), pawPal.getResponse("use"));
+        assertEquals(Printer.getWorkspaceSwitchedMessage("default", 1), pawPal.getResponse("use default"));
+        assertEquals(Printer.getWorkspaceUsageMessage(), pawPal.getResponse("use ../secrets"));
+        pawPal.shutdown();
+
+        assertTrue(Files.exists(tempDir.resolve("workspaces").resolve("work.txt.journal")));
+        PawPal reloaded = new PawPal(taskFile);
+        reloaded.getResponse("use work");
+        assertTrue(reloaded.getResponse("list").contains("write report"));
+        reloaded.shutdown();
+    }
+
+    @Test
+    void use_unreadableTaskFile_reportsItAndStaysPut() throws IOException {
+        Files.createDirectories(tempDir.resolve("workspaces").resolve("broken.txt")); // Cannot be read as a file
+        PawPal pawPal = new PawPal(tempDir.resolve("tasks.txt").toString());
+        long writersBefore = countStorageWriters();
+
+        for (int attempt = 0; attempt < 3; attempt++) {
+            assertEquals(Printer.getWorkspaceLoadingErrorMessage("broken"), pawPal.getResponse("use broken"));
+        }
+        assertEquals(Printer.getCurrentWorkspaceMessage("default"), pawPal.getResponse("use"));
+        assertTrue(countStorageWriters() <= writersBefore, "A failed load should not leave a writer thread behind");
+        pawPal.shutdown();
+    }
+
+    private static long countStorageWriters() {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("pawpal-storage-writer"))
+                .count();
+    }
+
+    @Test
+    void acquire_overCapacity_evictsColdestUnusedAndSavesIt() throws IOException {
+        Workspaces workspaces = new Workspaces(tempDir.resolve("tasks.txt").toString(), 1);
+        Workspace held = workspaces.acquire("held");
+        Workspace cold = workspaces.acquire("cold");
+        cold.getResponse(Command.TODO, "todo nap in the sun");
+        workspaces.release(cold);
+
+        Workspace other = workspaces.acquire("other");
+        workspaces.release(other);
+        assertSame(held, workspaces.acquire("held"), "A workspace in use should never be evicted");
+        workspaces.release(held);
+        workspaces.release(held);
+
+        Workspace reloaded = workspaces.acquire("cold");
+        assertNotSame(cold, reloaded);
+        assertEquals(1, reloaded.getTaskCount());
+        workspaces.release(reloaded);
+        workspaces.close();
+    }
+
+    @Test
+    void acquire_concurrentColdLoads_shareOneWorkspace() throws IOException, InterruptedException, ExecutionException {
+        Workspaces workspaces = new Workspaces(tempDir.resolve("tasks.txt").toString(), 2);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<Workspace>> acquired = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            acquired.add(pool.submit(() -> workspaces.acquire(Workspaces.normalize("shared"))));
+        }
+
+        Workspace first = acquired.get(0).get();
+        for (Future<Workspace> workspace : acquired) {
+            assertSame(first, workspace.get(), "Every command should get the one workspace that was loaded");
+            workspaces.release(workspace.get());
+        }
+        pool.shutdown();
+        workspaces.close();
+    }
+}
@@ -6,7 +6,7 @@ echo                Duke Test Runner
 echo ===============================================
 echo.
 
-echo [1/4] Checking Java version...
+echo [1/5] Checking Java version...
 java -version
 
 REM check if using Java 21
@@ -30,7 +30,7 @@ if NOT "%MAJORVER%"=="21" (
 echo [√] Java version check passed
 echo.
 
-echo [2/4] Setting up test environment...
+echo [2/5] Setting up test environment...
 if not exist ..\bin (
     mkdir ..\bin
     echo Created bin directory
@@ -42,7 +42,7 @@ if exist ACTUAL.TXT (
 )
 
 echo.
-echo [3/4] Compiling source files...
+echo [3/5] Compiling source files...
 javac -cp ..\src\main\java -Xlint:none -d ..\bin ..\src\main\java\*.java
 IF ERRORLEVEL 1 (
     echo.
@@ -55,11 +55,27 @@ IF ERRORLEVEL 1 (
 echo [√] Compilation successful
 echo.
 
-echo [4/4] Running tests...
-java -classpath ..\bin Duke < input.txt > ACTUAL.TXT
+echo [4/5] Running tests...
+java -classpath ..\bin pawpal.core.PawPal < input.txt > ACTUAL.TXT
 
 FC ACTUAL.TXT EXPECTED.TXT > nul
-if ERRORLEVEL 1 (
+set TEXTUISTATUS=%ERRORLEVEL%
+
+REM run the same commands as a script; its task file goes in a scratch directory so the chat run above is unaffected
+echo.
+echo [5/5] Running the same commands with --batch...
+set BINDIR=%~dp0..\bin
+set INPUTFILE=%~dp0input.txt
+set BATCHDIR=%TEMP%\pawpal-batch-%RANDOM%
+mkdir "%BATCHDIR%"
+pushd "%BATCHDIR%"
+java -classpath "%BINDIR%" pawpal.core.PawPal --batch "%INPUTFILE%" > "%~dp0ACTUAL-BATCH.TXT"
+set BATCHSTATUS=%ERRORLEVEL%
+popd
+rmdir /s /q "%BATCHDIR%"
+if not "%BATCHSTATUS%"=="0" echo Batch run exited with status %BATCHSTATUS%
+
+if not "%TEXTUISTATUS%%BATCHSTATUS%"=="00" (
     echo.
     echo =============== ERROR ===============
     echo           Tests FAILED             
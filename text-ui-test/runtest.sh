@@ -14,7 +14,7 @@ echo -e "${BLUE}               Duke Test Runner               ${NC}"
 echo -e "${BOLD}===============================================${NC}\n"
 
 # Print Java version for debugging
-echo -e "${BOLD}[1/4] Checking Java version...${NC}"
+echo -e "${BOLD}[1/5] Checking Java version...${NC}"
 java -version
 
 # check if using Java 21
@@ -34,7 +34,7 @@ fi
 echo -e "${GREEN}✓ Java version check passed${NC}\n"
 
 # create bin directory if it doesn't exist
-echo -e "${BOLD}[2/4] Setting up test environment...${NC}"
+echo -e "${BOLD}[2/5] Setting up test environment...${NC}"
 if [ ! -d "../bin" ]
 then
     mkdir ../bin
@@ -49,7 +49,7 @@ then
 fi
 
 # compile the code into the bin folder, terminates if error occurred
-echo -e "\n${BOLD}[3/4] Compiling source files...${NC}"
+echo -e "\n${BOLD}[3/5] Compiling source files...${NC}"
 if ! javac -cp ../src/main/java -Xlint:none -d ../bin $(find ./src/main/java -name "*.java")
 then
     echo -e "\n${RED}╔════ ERROR ══════════════════════════════════╗${NC}"
@@ -60,8 +60,8 @@ fi
 echo -e "${GREEN}✓ Compilation successful${NC}\n"
 
 # run the program, feed commands from input.txt file and redirect the output to the ACTUAL.TXT
-echo -e "${BOLD}[4/4] Running tests...${NC}"
-java -classpath ../bin PawPal < ./text-ui-test/input.txt > ACTUAL.TXT
+echo -e "${BOLD}[4/5] Running tests...${NC}"
+java -classpath ../bin pawpal.core.PawPal < ./text-ui-test/input.txt > ACTUAL.TXT
 
 # convert to UNIX format
 cp ./text-ui-test/EXPECTED.TXT EXPECTED-UNIX.TXT
@@ -69,7 +69,22 @@ dos2unix ACTUAL.TXT EXPECTED-UNIX.TXT 2>/dev/null
 
 # compare the output to the expected output
 diff ACTUAL.TXT EXPECTED-UNIX.TXT
-if [ $? -eq 0 ]
+text_ui_status=$?
+
+# run the same commands as a script; its task file goes in a scratch directory so the chat run above is unaffected
+echo -e "\n${BOLD}[5/5] Running the same commands with --batch...${NC}"
+bin_dir=$(cd ../bin && pwd)
+input_file=$(pwd)/text-ui-test/input.txt
+batch_dir=$(mktemp -d)
+(cd "$batch_dir" && java -classpath "$bin_dir" pawpal.core.PawPal --batch "$input_file") > ACTUAL-BATCH.TXT
+batch_status=$?
+rm -rf "$batch_dir"
+if [ $batch_status -ne 0 ]
+then
+    echo -e "${RED}Batch run exited with status $batch_status${NC}"
+fi
+
+if [ $text_ui_status -eq 0 ] && [ $batch_status -eq 0 ]
 then
     echo -e "\n${GREEN}╔════ SUCCESS ════════════════════════════════╗${NC}"
     echo -e "${GREEN}║              All tests passed                ║${NC}"